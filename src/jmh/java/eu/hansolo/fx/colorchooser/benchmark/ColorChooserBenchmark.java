@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.benchmark;
+
+import eu.hansolo.fx.colorchooser.ColorChooser;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.Node;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Slider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks the full update chain of the ColorChooser from a slider value
+ * to the observers. The chooser is not shown, so its properties can be
+ * changed from the benchmark thread. Needs a display to start the toolkit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ColorChooserBenchmark {
+    @Param({ "RGB", "RGB Hex", "HSL" })
+    public  String       colorModel;
+    private ColorChooser colorChooser;
+    private Slider       slider1;
+    private Slider       opacitySlider;
+    private int          value;
+
+
+    // ******************** Setup *********************************************
+    @Setup(Level.Trial) public void setup(final Blackhole blackhole) {
+        new JFXPanel(); // Starts the JavaFX toolkit
+
+        colorChooser = new ColorChooser();
+        colorChooser.addColorChooserObserver(e -> blackhole.consume(e.getColorChooser().getFill()));
+
+        List<Slider> sliders = new ArrayList<>();
+        for (Node node : colorChooser.lookupAll(".slider")) { sliders.add((Slider) node); }
+        slider1       = sliders.get(0);
+        opacitySlider = sliders.get(3);
+
+        ChoiceBox<?> colorModelChooser = (ChoiceBox<?>) colorChooser.lookup(".choice-box");
+        colorModelChooser.getSelectionModel().select(colorModelChooser.getItems().indexOf(colorModel));
+        value = 0;
+    }
+
+
+    // ******************** Benchmarks ****************************************
+    @Benchmark public void slider() {
+        value = value >= 100 ? 0 : value + 1;
+        slider1.setValue(value);
+    }
+
+    @Benchmark public void opacitySlider() {
+        value = value >= 100 ? 0 : value + 1;
+        opacitySlider.setValue(value / 100.0);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.benchmark;
+
+import eu.hansolo.fx.colorchooser.ColorChooserModel;
+import eu.hansolo.fx.colorchooser.ColorModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks the color semantics of the ColorChooser without JavaFX, the
+ * counterpart of ColorChooserBenchmark, which includes the controls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColorChooserModelBenchmark {
+    @Param({ "RGB", "RGB_HEX", "HSL" })
+    public  ColorModel        colorModel;
+    private ColorChooserModel model;
+    private int               value;
+
+
+    // ******************** Setup *********************************************
+    @Setup(Level.Trial) public void setup() {
+        model = new ColorChooserModel(0xFF336699);
+        model.setColorModel(colorModel);
+        value = 0;
+    }
+
+
+    // ******************** Benchmarks ****************************************
+    @Benchmark public int slider() {
+        value = value >= 100 ? 0 : value + 1;
+        model.setValue(0, value);
+        return model.getArgb();
+    }
+
+    @Benchmark public int opacity() {
+        value = value >= 100 ? 0 : value + 1;
+        model.setOpacity(value / 100.0);
+        return model.getArgb();
+    }
+
+    @Benchmark public int setArgb() {
+        value = value >= 100 ? 0 : value + 1;
+        model.setArgb(0xFF000000 | value * 0x020301);
+        return model.getArgb();
+    }
+
+    @Benchmark public boolean parseColor() { return model.parseColor("rgba(51, 102, 153, 0.5)"); }
+
+    @Benchmark public String format() {
+        value = value >= 2 ? 0 : value + 1;
+        return model.format(value);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.benchmark;
+
+import eu.hansolo.fx.colorchooser.tool.ColorIndex;
+import eu.hansolo.fx.colorchooser.tool.ColorSpace;
+import eu.hansolo.fx.colorchooser.tool.DeltaE;
+import eu.hansolo.fx.colorchooser.tool.LabPalette;
+import eu.hansolo.fx.colorchooser.tool.PackedColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks of the closest palette color lookup. linearScan is the cost
+ * of comparing the color with every palette color like it would be done
+ * with Helper.colorDistance(). closestDeltaE2000 uses the lightness
+ * prefilter of LabPalette, deltaE2000AllColors compares all colors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColorIndexBenchmark {
+    @Param({ "16", "256", "4096" })
+    public  int        paletteSize;
+    private int[]      palette;
+    private int[]      colors;
+    private int[]      indices;
+    private ColorIndex rgbIndex;
+    private ColorIndex oklabIndex;
+    private LabPalette labPalette;
+    private double[]   differences;
+    private int        next;
+
+
+    // ******************** Benchmarks ****************************************
+    @Setup public void setup() {
+        Random random = new Random(42);
+        palette = new int[paletteSize];
+        colors  = new int[1 << 16];
+        indices = new int[colors.length];
+        for (int i = 0 ; i < palette.length ; i++) { palette[i] = 0xFF000000 | random.nextInt(0x1000000); }
+        for (int i = 0 ; i < colors.length ; i++) { colors[i] = 0xFF000000 | random.nextInt(0x1000000); }
+        rgbIndex    = new ColorIndex(palette, ColorSpace.SRGB);
+        oklabIndex  = new ColorIndex(palette, ColorSpace.OKLAB);
+        labPalette  = new LabPalette(palette);
+        differences = new double[paletteSize];
+        next        = 0;
+    }
+
+    @Benchmark public int linearScan() {
+        int    argb         = nextColor();
+        int    bestIndex    = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0 ; i < palette.length ; i++) {
+            double distance = PackedColor.distance(argb, palette[i]);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestIndex    = i;
+            }
+        }
+        return bestIndex;
+    }
+
+    @Benchmark public int nearestRgb() { return rgbIndex.nearest(nextColor()); }
+
+    @Benchmark public int nearestOklab() { return oklabIndex.nearest(nextColor()); }
+
+    @Benchmark public int[] kNearestOklab() { return oklabIndex.kNearest(nextColor(), 5); }
+
+    @Benchmark public double[] deltaE2000AllColors() {
+        labPalette.deltaE(nextColor(), DeltaE.CIEDE2000, differences);
+        return differences;
+    }
+
+    @Benchmark public int closestDeltaE2000() { return labPalette.closest(nextColor(), DeltaE.CIEDE2000); }
+
+    @Benchmark @OutputTimeUnit(TimeUnit.MICROSECONDS) public int[] batchOklab() {
+        oklabIndex.nearest(colors, indices);
+        return indices;
+    }
+
+    private int nextColor() {
+        next = (next + 1) & (colors.length - 1);
+        return colors[next];
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.benchmark;
+
+import eu.hansolo.fx.colorchooser.tool.ColorParser;
+import eu.hansolo.fx.colorchooser.tool.CompiledGradient;
+import eu.hansolo.fx.colorchooser.tool.Helper;
+import eu.hansolo.fx.colorchooser.tool.HslLookupTable;
+import eu.hansolo.fx.colorchooser.tool.PackedColor;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Stop;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks of the color conversions in Helper that are used on every
+ * slider tick and spectrum pixel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HelperBenchmark {
+    private Color            color;
+    private int              argb;
+    private double[]         hsl;
+    private List<Stop>       stops;
+    private CompiledGradient gradient;
+    private String           text;
+    private String           css;
+    private double           hue;
+    private double           position;
+
+
+    // ******************** Setup *********************************************
+    @Setup public void setup() {
+        color    = Color.web("#5a8fd2", 0.8);
+        argb     = Helper.toARGB(color);
+        hsl      = new double[3];
+        stops    = Arrays.asList(new Stop(0.0, Color.BLUE), new Stop(0.25, Color.CYAN), new Stop(0.5, Color.LIME), new Stop(0.75, Color.YELLOW), new Stop(1.0, Color.RED));
+        gradient = new CompiledGradient(stops);
+        text     = "Color: #5a8fd2cc";
+        css      = "rgba(90, 143, 210, 0.8)";
+        hue      = 0;
+        position = 0;
+    }
+
+
+    // ******************** Benchmarks ****************************************
+    @Benchmark public Color hslToRGB() {
+        hue = hue >= 359 ? 0 : hue + 1;
+        return Helper.hslToRGB(hue, 0.75, 0.5, 1.0);
+    }
+
+    @Benchmark public double[] rgbToHSL() { return Helper.rgbToHSL(color.getRed(), color.getGreen(), color.getBlue()); }
+
+    @Benchmark public Color getColorAt() {
+        position = position >= 1 ? 0 : position + 0.001;
+        return Helper.getColorAt(stops, position);
+    }
+
+    @Benchmark public int compiledGradient() {
+        position = position >= 1 ? 0 : position + 0.001;
+        return gradient.getArgb(position);
+    }
+
+    @Benchmark public String colorToRGBA() { return Helper.colorToRGBA(color); }
+
+    @Benchmark public String colorToWeb() { return Helper.colorToWeb(color); }
+
+    @Benchmark public String getHexColorFromString() { return Helper.getHexColorFromString(text); }
+
+    @Benchmark public long parseColor() { return ColorParser.tryParse(css); }
+
+    @Benchmark public int packedHslToArgb() {
+        hue = hue >= 359 ? 0 : hue + 1;
+        return PackedColor.hslToArgb(hue, 0.75, 0.5, 1.0);
+    }
+
+    @Benchmark public int hslLookupTable() {
+        hue = hue >= 359 ? 0 : hue + 1;
+        return HslLookupTable.hslToArgb(hue, 0.75, 0.5, 1.0);
+    }
+
+    @Benchmark public Color fromARGB() {
+        hue = hue >= 359 ? 0 : hue + 1;
+        return Helper.fromARGB(PackedColor.withAlpha(argb + (int) hue, 0xFF));
+    }
+
+    @Benchmark public double[] packedRgbToHsl() {
+        PackedColor.rgbToHsl(argb, hsl);
+        return hsl;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.benchmark;
+
+import eu.hansolo.fx.colorchooser.tool.Helper;
+import eu.hansolo.fx.colorchooser.tool.SpectrumRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks of the spectrum generation that is done in
+ * ColorChooser.drawColorCanvas(). The canvas is 5 times wider than high.
+ * perPixelColor is the cost of the Color based conversion per pixel that
+ * drawColorCanvas() used before the spectrum was rendered into a buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpectrumBenchmark {
+    @Param({ "250", "1024", "2048" })
+    public int width;
+
+
+    // ******************** Benchmarks ****************************************
+    @Benchmark public void perPixelColor(final Blackhole blackhole) {
+        int    height = width / 5;
+        double xStep  = 360.0 / width;
+        double yStep  = 1.0 / height;
+        for (int y = 0 ; y < height ; y++) {
+            for (int x = 0 ; x < width ; x++) {
+                blackhole.consume(Helper.hslToRGB(x * xStep, 1, 1 - y * yStep));
+            }
+        }
+    }
+
+    @Benchmark public int[] render() { return SpectrumRenderer.render(width, width / 5); }
+
+    @Benchmark public int[] renderAsync() { return SpectrumRenderer.renderAsync(width, width / 5).join(); }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.benchmark;
+
+import eu.hansolo.fx.colorchooser.ColorChooser;
+import eu.hansolo.fx.colorchooser.ColorSelector;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+
+/**
+ * Measures the construction time of a ColorChooser and a ColorSelector
+ * that are not shown. The retained heap per instance can't be measured by
+ * JMH, run the main method of this class to print it. Needs a display to
+ * start the toolkit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StartupBenchmark {
+    private static final int INSTANCES = 500;
+
+
+    // ******************** Setup *********************************************
+    @Setup(Level.Trial) public void setup() {
+        new JFXPanel(); // Starts the JavaFX toolkit
+    }
+
+
+    // ******************** Benchmarks ****************************************
+    @Benchmark public ColorChooser colorChooser() { return new ColorChooser(); }
+
+    @Benchmark public ColorSelector colorSelector() { return new ColorSelector("Fill", Color.BLACK); }
+
+
+    // ******************** Retained heap *************************************
+    public static void main(final String[] args) {
+        new JFXPanel(); // Starts the JavaFX toolkit
+        printRetainedHeap("ColorChooser", ColorChooser::new);
+        printRetainedHeap("ColorSelector", () -> new ColorSelector("Fill", Color.BLACK));
+    }
+
+    private static void printRetainedHeap(final String name, final Supplier<Object> factory) {
+        // The first instances load the classes and fill the static caches
+        for (int i = 0 ; i < 10 ; i++) { factory.get(); }
+
+        List<Object> instances = new ArrayList<>(INSTANCES);
+        long         before    = usedHeap();
+        long         start     = System.nanoTime();
+        for (int i = 0 ; i < INSTANCES ; i++) { instances.add(factory.get()); }
+        long         time      = System.nanoTime() - start;
+        long         after     = usedHeap();
+        System.out.printf("%-14s %8.1f us/instance %10d bytes/instance%n", name, time / 1000.0 / INSTANCES, (after - before) / INSTANCES);
+        instances.clear();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0 ; i < 3 ; i++) {
+            System.gc();
+            try { Thread.sleep(50); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
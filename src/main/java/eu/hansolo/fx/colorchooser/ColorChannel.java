@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser;
+
+/**
+ * The channel of a color that was changed in the ColorChooser. ALL will be
+ * used if the whole color was changed at once (e.g. by the spectrum, the
+ * color field or by calling setFill()/setStroke()).
+ */
+public enum ColorChannel { RED, GREEN, BLUE, HUE, SATURATION, LIGHTNESS, OPACITY, ALL }
@@ -16,10 +16,22 @@
 
 package eu.hansolo.fx.colorchooser;
 
+import eu.hansolo.fx.colorchooser.tool.ColorCache;
+import eu.hansolo.fx.colorchooser.tool.ColorFormat;
+import eu.hansolo.fx.colorchooser.tool.ColorIndex;
 import eu.hansolo.fx.colorchooser.tool.Helper;
+import eu.hansolo.fx.colorchooser.tool.PackedColor;
+import eu.hansolo.fx.colorchooser.tool.PaletteExtractor;
+import eu.hansolo.fx.colorchooser.tool.PaletteSource;
+import eu.hansolo.fx.colorchooser.tool.SpectrumCache;
+import eu.hansolo.fx.colorchooser.tool.SpectrumRenderer;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.beans.DefaultProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ObjectPropertyBase;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Bounds;
@@ -34,7 +46,11 @@ import javafx.scene.control.Label;
 import javafx.scene.control.Slider;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleGroup;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
@@ -42,12 +58,14 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Executor;
 
 
 /**
@@ -57,59 +75,110 @@ import java.util.regex.Pattern;
  */
 @DefaultProperty("children")
 public class ColorChooser extends Region {
-    private static final double                     PREFERRED_WIDTH  = 250;
-    private static final double                     PREFERRED_HEIGHT = 215;
-    private static final double                     MINIMUM_WIDTH    = 50;
-    private static final double                     MINIMUM_HEIGHT   = 50;
-    private static final double                     MAXIMUM_WIDTH    = 1024;
-    private static final double                     MAXIMUM_HEIGHT   = 1024;
-    private static final Pattern                    HEX_PATTERN      = Pattern.compile("#?([A-Fa-f0-9]{2})");
-    private static final Matcher                    HEX_MATCHER      = HEX_PATTERN.matcher("");
-    private static final Color                      DARK_COLOR       = Color.BLACK;
-    private static final Color                      BRIGHT_COLOR     = Color.web("#dbdbdb");
-    private              double                     size;
-    private              double                     width;
-    private              double                     height;
-    private              GridPane                   grid;
-    private              ColorSelector              fillSelector;
-    private              ColorSelectorObserver      fillSelectorObserver;
-    private              ColorSelector              strokeSelector;
-    private              ColorSelectorObserver      strokeSelectorObserver;
-    private              ChoiceBox                  colorModelChooser;
-    private              ComboBox                   opacityChooser;
-    private              Label                      slider1Label;
-    private              Slider                     slider1;
-    private              TextField                  slider1Field;
-    private              Label                      slider2Label;
-    private              Slider                     slider2;
-    private              TextField                  slider2Field;
-    private              Label                      slider3Label;
-    private              Slider                     slider3;
-    private              TextField                  slider3Field;
-    private              Canvas                     canvas;
-    private              GraphicsContext            ctx;
-    private              TextField                  colorField;
-    private              Slider                     opacitySlider;
-    private              Circle                     opacity0;
-    private              Circle                     opacity1;
-    private              Pane                       pane;
-    private              Color                      _fill;
-    private              ObjectProperty<Color>      fill;
-    private              Color                      _stroke;
-    private              ObjectProperty<Color>      stroke;
-    private              double                     xStep;
-    private              double                     yStep;
-    private              List<ColorChooserObserver> observers;
+    private static final double                                PREFERRED_WIDTH  = 250;
+    private static final double                                PREFERRED_HEIGHT = 215;
+    private static final double                                MINIMUM_WIDTH    = 50;
+    private static final double                                MINIMUM_HEIGHT   = 50;
+    private static final double                                MAXIMUM_WIDTH    = 1024;
+    private static final double                                MAXIMUM_HEIGHT   = 1024;
+    private static final Color                                 DARK_COLOR       = Color.BLACK;
+    private static final Color                                 BRIGHT_COLOR     = Color.web("#dbdbdb");
+    private static final double                                MARKER_SIZE      = 6;
+    private static final double                                MARKER_GAP       = 2;
+    private static final String                                STYLE_SHEET      = ColorChooser.class.getResource("colorchooser.css").toExternalForm();
+    private              double                                size;
+    private              double                                width;
+    private              double                                height;
+    private              GridPane                              grid;
+    private              ColorSelector                         fillSelector;
+    private              ColorSelectorObserver                 fillSelectorObserver;
+    private              ColorSelector                         strokeSelector;
+    private              ColorSelectorObserver                 strokeSelectorObserver;
+    private              ChoiceBox                             colorModelChooser;
+    private              ComboBox                              opacityChooser;
+    private              Label                                 slider1Label;
+    private              Slider                                slider1;
+    private              TextField                             slider1Field;
+    private              Label                                 slider2Label;
+    private              Slider                                slider2;
+    private              TextField                             slider2Field;
+    private              Label                                 slider3Label;
+    private              Slider                                slider3;
+    private              TextField                             slider3Field;
+    private              Canvas                                canvas;
+    private              GraphicsContext                       ctx;
+    private              Canvas                                overlay;
+    private              GraphicsContext                       overlayCtx;
+    private              double[]                              markerHsl;
+    private              double                                markerX;
+    private              double                                markerY;
+    private              WritableImage                         spectrum;
+    private              CompletableFuture<int[]>              spectrumTask;
+    private              TextField                             colorField;
+    private              Rectangle                             paletteSwatch;
+    private              Slider                                opacitySlider;
+    private              Circle                                opacity0;
+    private              Circle                                opacity1;
+    private              SwatchGrid                            swatchGrid;
+    private              CompletableFuture<int[]>              swatchTask;
+    private              Pane                                  pane;
+    private              Color                                 _fill;
+    private              ObjectProperty<Color>                 fill;
+    private              Color                                 _stroke;
+    private              ObjectProperty<Color>                 stroke;
+    private              List<ColorChooserObserver>            observers;
+    private              List<ObserverLane<ColorChooserEvent>> asyncObservers;
+    private              DispatchMode                          _dispatchMode;
+    private              ObjectProperty<DispatchMode>          dispatchMode;
+    private              AnimationTimer                        pulseDispatcher;
+    private              boolean                               fillPending;
+    private              boolean                               strokePending;
+    private              ColorChannel                          pendingFillChannel;
+    private              ColorChannel                          pendingStrokeChannel;
+    private              ColorChannel                          changedChannel;
+    private              Color                                 reportedFill;
+    private              Color                                 reportedStroke;
+    private              Color                                 committedFill;
+    private              Color                                 committedStroke;
+    private              boolean                               reuseEvents;
+    private              ColorChooserEvent[]                   events;
+    private              int                                   dispatchDepth;
+    private              boolean                               updating;
+    private              Color                                 deferredColor;
+    private              ColorChooserModel                     model;
+    private              ColorIndex                            paletteIndex;
+    private              Color                                 _closestPaletteColor;
+    private              ReadOnlyObjectWrapper<Color>          closestPaletteColor;
 
 
     // ******************** Constructors **************************************
     public ColorChooser() {
-        getStylesheets().add(ColorChooser.class.getResource("colorchooser.css").toExternalForm());
+        getStylesheets().add(STYLE_SHEET);
         _fill                  = Color.BLACK;
         _stroke                = Color.BLACK;
-        fillSelectorObserver   = e -> setSliders(e.getSelectedColor());
-        strokeSelectorObserver = e -> setSliders(e.getSelectedColor());
+        fillSelectorObserver   = e -> applyColorAndCommit(e.getSelectedColor());
+        strokeSelectorObserver = e -> applyColorAndCommit(e.getSelectedColor());
         observers              = new CopyOnWriteArrayList<>();
+        asyncObservers         = new CopyOnWriteArrayList<>();
+        changedChannel         = ColorChannel.ALL;
+        reportedFill           = _fill;
+        reportedStroke         = _stroke;
+        committedFill          = _fill;
+        committedStroke        = _stroke;
+        reuseEvents            = false;
+        dispatchDepth          = 0;
+        updating               = false;
+        model                  = new ColorChooserModel(Helper.toARGB(_fill));
+        markerHsl              = new double[3];
+        markerX                = -1;
+        events                 = new ColorChooserEvent[ColorChooserEventType.values().length];
+        for (ColorChooserEventType type : ColorChooserEventType.values()) {
+            events[type.ordinal()] = new ColorChooserEvent(ColorChooser.this, type, _fill, _fill, ColorChannel.ALL, true);
+        }
+        _dispatchMode          = DispatchMode.IMMEDIATE;
+        pulseDispatcher        = new AnimationTimer() {
+            @Override public void handle(final long now) { flushPendingEvents(); }
+        };
 
         initGraphics();
         registerListeners();
@@ -181,9 +250,22 @@ public class ColorChooser extends Region {
         colorField.setMaxWidth(70);
         colorField.setAlignment(Pos.CENTER_RIGHT);
 
+        paletteSwatch = new Rectangle(16, 16, Color.TRANSPARENT);
+        paletteSwatch.setStroke(BRIGHT_COLOR);
+        paletteSwatch.setVisible(false);
+        paletteSwatch.setManaged(false);
+        HBox colorBox = new HBox(5, paletteSwatch, colorField);
+        colorBox.setAlignment(Pos.CENTER_RIGHT);
+
+        // The spectrum will be drawn on the first resize, choosers that are never shown don't render it
         canvas = new Canvas(250, 48);
         ctx    = canvas.getGraphicsContext2D();
-        drawColorCanvas();
+
+        // The marker of the current color is drawn on its own layer, so moving it never repaints the spectrum
+        overlay    = new Canvas(250, 48);
+        overlay.setMouseTransparent(true);
+        overlayCtx = overlay.getGraphicsContext2D();
+        Pane spectrumPane = new Pane(canvas, overlay);
 
         Label opacityLabel = new Label("Opacity");
         opacitySlider = new Slider(0, 1, 1);
@@ -211,8 +293,8 @@ public class ColorChooser extends Region {
         grid.add(slider1Box, 0, 1);
         grid.add(slider2Box, 0, 2);
         grid.add(slider3Box, 0, 3);
-        grid.add(colorField, 0, 4);
-        grid.add(canvas, 0, 5);
+        grid.add(colorBox, 0, 4);
+        grid.add(spectrumPane, 0, 5);
         grid.add(opacityLabel, 0, 6);
         grid.add(opacityBox, 0, 7);
 
@@ -222,11 +304,11 @@ public class ColorChooser extends Region {
         GridPane.setColumnSpan(slider1Box, 3);
         GridPane.setColumnSpan(slider2Box, 3);
         GridPane.setColumnSpan(slider3Box, 3);
-        GridPane.setColumnSpan(colorField, 3);
-        GridPane.setColumnSpan(canvas, 3);
+        GridPane.setColumnSpan(colorBox, 3);
+        GridPane.setColumnSpan(spectrumPane, 3);
         GridPane.setColumnSpan(opacityBox, 3);
 
-        GridPane.setHalignment(colorField, HPos.RIGHT);
+        GridPane.setHalignment(colorBox, HPos.RIGHT);
 
         pane = new Pane(grid);
 
@@ -237,402 +319,122 @@ public class ColorChooser extends Region {
         widthProperty().addListener(o -> resize());
         heightProperty().addListener(o -> resize());
 
+        // Switching between fill and stroke only shows the color of the selected one
         fillSelector.selectedProperty().addListener((o, ov, nv) -> {
-            if (nv) {
-                Color fillColor = fillSelector.getFill();
-                switch (colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                    case 0: // RGB
-                        slider1.setValue(fillColor.getRed() * 255);
-                        slider2.setValue(fillColor.getGreen() * 255);
-                        slider3.setValue(fillColor.getBlue() * 255);
-                        opacitySlider.setValue(fillColor.getOpacity());
-                        break;
-                    case 1: // RGB Hex
-                        slider1.setValue(fillColor.getRed() * 255);
-                        slider2.setValue(fillColor.getGreen() * 255);
-                        slider3.setValue(fillColor.getBlue() * 255);
-                        opacitySlider.setValue(fillColor.getOpacity());
-                        break;
-                    case 2: // HSL
-                        double[] hsl = Helper.toHSL(fillColor);
-                        slider1.setValue(hsl[0]);
-                        slider2.setValue(hsl[1] * 100.0);
-                        slider3.setValue(hsl[2] * 100.0);
-                        opacitySlider.setValue(fillColor.getOpacity());
-                        break;
-                }
-            }
+            if (!nv) { return; }
+            syncControls(fillSelector.getFill());
+            updateClosestPaletteColor();
+            updateMarker();
         });
         strokeSelector.selectedProperty().addListener((o, ov, nv) -> {
-            if (nv) {
-                Color strokeColor = strokeSelector.getFill();
-                switch (colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                    case 0: // RGB
-                        slider1.setValue(strokeColor.getRed() * 255);
-                        slider2.setValue(strokeColor.getGreen() * 255);
-                        slider3.setValue(strokeColor.getBlue() * 255);
-                        opacitySlider.setValue(strokeColor.getOpacity());
-                        break;
-                    case 1: // RGB Hex
-                        slider1.setValue(strokeColor.getRed() * 255);
-                        slider2.setValue(strokeColor.getGreen() * 255);
-                        slider3.setValue(strokeColor.getBlue() * 255);
-                        opacitySlider.setValue(strokeColor.getOpacity());
-                        break;
-                    case 2: // HSL
-                        double[] hsl = Helper.toHSL(strokeColor);
-                        slider1.setValue(hsl[0]);
-                        slider2.setValue(hsl[1] * 100.0);
-                        slider3.setValue(hsl[2] * 100.0);
-                        opacitySlider.setValue(strokeColor.getOpacity());
-                        break;
-                }
-            }
+            if (!nv) { return; }
+            syncControls(strokeSelector.getFill());
+            updateClosestPaletteColor();
+            updateMarker();
         });
 
         fillSelector.addColorSelectorObserver(fillSelectorObserver);
         strokeSelector.addColorSelectorObserver(strokeSelectorObserver);
 
         colorModelChooser.getSelectionModel().selectedIndexProperty().addListener((o, ov, nv) -> {
+            // Switching the color model doesn't change the color, so the sliders are updated silently
             Color color = fillSelector.isSelected() ? getFill() : getStroke();
-            switch(nv.intValue()) {
-                case 0: // RGB
-                    slider1.setMax(255);
-                    slider1Label.setText("R");
-                    slider1Field.setText(Integer.toString((int) (Math.round(color.getRed() * 255.0))));
-                    slider1.setValue(Math.round(color.getRed() * 255.0));
-                    slider2.setMax(255);
-                    slider2Label.setText("G");
-                    slider2Field.setText(Integer.toString((int) (Math.round(color.getGreen() * 255.0))));
-                    slider2.setValue(Math.round(color.getGreen() * 255.0));
-                    slider3.setMax(255);
-                    slider3Label.setText("B");
-                    slider3Field.setText(Integer.toString((int) (Math.round(color.getBlue() * 255.0))));
-                    slider3.setValue(Math.round(color.getBlue() * 255.0));
-                    break;
-                case 1: // RGB Hex
-                    slider1.setMax(255);
-                    slider1Label.setText("R");
-                    slider1Field.setText(String.format("%02X", (int) (Math.round(color.getRed() * 255.0))));
-                    slider1.setValue(Math.round(color.getRed() * 255.0));
-                    slider2.setMax(255);
-                    slider2Label.setText("G");
-                    slider2Field.setText(String.format("%02X", (int) (Math.round(color.getGreen() * 255.0))));
-                    slider2.setValue(Math.round(color.getGreen() * 255.0));
-                    slider3.setMax(255);
-                    slider3Label.setText("B");
-                    slider3Field.setText(String.format("%02X", (int) (Math.round(color.getBlue() * 255.0))));
-                    slider3.setValue(Math.round(color.getBlue() * 255.0));
-                    break;
-                case 2: // HSL
-                    double[] hsl = Helper.toHSL(color);
-                    double hue        = hsl[0];
-                    double saturation = hsl[1] * 100;
-                    double lightness  = hsl[2] * 100;
-                    slider1.setMax(360);
-                    slider1Label.setText("H");
-
-                    slider2.setMax(100);
-                    slider2Label.setText("S");
-
-                    slider3.setMax(100);
-                    slider3Label.setText("L");
-
-                    slider3.setValue(lightness);
-                    slider2.setValue(saturation);
-                    slider1.setValue(hue);
-                    break;
-            }
+            updating = true;
+            model.setColorModel(ColorModel.values()[nv.intValue()]);
+            slider1.setMax(model.getMax(0));
+            slider1Label.setText(model.getLabel(0));
+            slider2.setMax(model.getMax(1));
+            slider2Label.setText(model.getLabel(1));
+            slider3.setMax(model.getMax(2));
+            slider3Label.setText(model.getLabel(2));
+            updating = false;
+            syncControls(color);
         });
 
         slider1.valueProperty().addListener((o, ov, nv) -> {
-            switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                case 0: // RGB
-                    slider1Field.setText(Integer.toString((int) (slider1.getValue())));
-                    if (fillSelector.isSelected()) {
-                        setFill(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    } else {
-                        setStroke(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    }
-                    break;
-                case 1: // RGB Hex
-                    slider1Field.setText(String.format("%02X", (int) (slider1.getValue())));
-                    if (fillSelector.isSelected()) {
-                        setFill(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    } else {
-                        setStroke(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    }
-                    break;
-                case 2: // HSL
-                    slider1Field.setText(Integer.toString((int) (slider1.getValue())));
-                    if (fillSelector.isSelected()) {
-                        Color color = Helper.hslToRGB(slider1.getValue(), (slider2.getValue() / 100.0), (slider3.getValue() / 100.0), opacitySlider.getValue());
-                        setFill(color);
-                    } else {
-                        Color color = Helper.hslToRGB(slider1.getValue(), (slider2.getValue() / 100.0), (slider3.getValue() / 100.0), opacitySlider.getValue());
-                        setStroke(color);
-                    }
-                    break;
-            }
+            if (updating) { return; }
+            slider1Field.setText(model.formatValue(nv.doubleValue()));
+            applySlider(0, nv.doubleValue());
         });
         slider2.valueProperty().addListener((o, ov, nv) -> {
-            switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                case 0: // RGB
-                    slider2Field.setText(Integer.toString((int) (slider2.getValue())));
-                    if (fillSelector.isSelected()) {
-                        setFill(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    } else {
-                        setStroke(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    }
-                    break;
-                case 1: // RGB Hex
-                    slider2Field.setText(String.format("%02X", (int) (slider2.getValue())));
-                    if (fillSelector.isSelected()) {
-                        setFill(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    } else {
-                        setStroke(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    }
-                    break;
-                case 2: // HSL
-                    slider2Field.setText(Integer.toString((int) (slider2.getValue())));
-                    if (fillSelector.isSelected()) {
-                        Color color = Helper.hslToRGB(slider1.getValue(), (slider2.getValue() / 100.0), (slider3.getValue() / 100.0), opacitySlider.getValue());
-                        setFill(color);
-                    } else {
-                        Color color = Helper.hslToRGB(slider1.getValue(), (slider2.getValue() / 100.0), (slider3.getValue() / 100.0), opacitySlider.getValue());
-                        setStroke(color);
-                    }
-                    break;
-            }
+            if (updating) { return; }
+            slider2Field.setText(model.formatValue(nv.doubleValue()));
+            applySlider(1, nv.doubleValue());
         });
         slider3.valueProperty().addListener((o, ov, nv) -> {
-            switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                case 0: // RGB
-                    slider3Field.setText(Integer.toString((int) (slider3.getValue())));
-                    if (fillSelector.isSelected()) {
-                        setFill(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    } else {
-                        setStroke(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    }
-                    break;
-                case 1: // RGB Hex
-                    slider3Field.setText(String.format("%02X", (int) (slider3.getValue())));
-                    if (fillSelector.isSelected()) {
-                        setFill(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    } else {
-                        setStroke(Color.rgb((int) slider1.getValue(), (int) slider2.getValue(), (int) slider3.getValue(), opacitySlider.getValue()));
-                    }
-                    break;
-                case 2: // HSL
-                    slider3Field.setText(Integer.toString((int) (slider3.getValue())));
-                    if (fillSelector.isSelected()) {
-                        Color color = Helper.hslToRGB(slider1.getValue(), (slider2.getValue() / 100.0), (slider3.getValue() / 100.0), opacitySlider.getValue());
-                        setFill(color);
-                    } else {
-                        Color color = Helper.hslToRGB(slider1.getValue(), (slider2.getValue() / 100.0), (slider3.getValue() / 100.0), opacitySlider.getValue());
-                        setStroke(color);
-                    }
-                    break;
-            }
+            if (updating) { return; }
+            slider3Field.setText(model.formatValue(nv.doubleValue()));
+            applySlider(2, nv.doubleValue());
         });
 
-        slider1Field.focusedProperty().addListener((o, ov, nv) -> {
-            if (!nv) {
-                int value;
-                switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                    case 0:
-                        value = Helper.clamp(0, 255, (int) Helper.getNumberFromText(slider1Field.getText()));
-                        slider1Field.setText(Integer.toString(value));
-                        slider1.setValue(value);
-                        break;
-                    case 1:
-                        HEX_MATCHER.reset(slider1Field.getText());
-                        String result = "";
-                        try { while (HEX_MATCHER.find()) { result = HEX_MATCHER.group(0); } } catch (IllegalStateException ex) { result = "00"; }
-                        value = Integer.parseInt(result, 16);
-                        slider1Field.setText(result);
-                        slider1.setValue(value);
-                        break;
-                    case 2:
-                        value = Helper.clamp(0, 360, (int) Helper.getNumberFromText(slider1Field.getText()));
-                        slider1Field.setText(Integer.toString(value));
-                        slider1.setValue(value);
-                        break;
-                }
-            }
-        });
-        slider2Field.focusedProperty().addListener((o, ov, nv) -> {
-            int value;
-            switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                case 0:
-                    value = Helper.clamp(0, 255, (int) Helper.getNumberFromText(slider2Field.getText()));
-                    slider2Field.setText(Integer.toString(value));
-                    slider2.setValue(value);
-                    break;
-                case 1:
-                    HEX_MATCHER.reset(slider2Field.getText());
-                    String result = "";
-                    try { while (HEX_MATCHER.find()) { result = HEX_MATCHER.group(0); } } catch (IllegalStateException ex) { result = "00"; }
-                    value = Integer.parseInt(result, 16);
-                    slider2Field.setText(result);
-                    slider2.setValue(value);
-                    break;
-                case 2:
-                    value = Helper.clamp(0, 100, (int) Helper.getNumberFromText(slider2Field.getText()));
-                    slider2Field.setText(Integer.toString(value));
-                    slider2.setValue(value);
-                    break;
-            }
-        });
-        slider3Field.focusedProperty().addListener((o, ov, nv) -> {
-            int value;
-            switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                case 0:
-                    value = Helper.clamp(0, 255, (int) Helper.getNumberFromText(slider3Field.getText()));
-                    slider3Field.setText(Integer.toString(value));
-                    slider3.setValue(value);
-                    break;
-                case 1:
-                    HEX_MATCHER.reset(slider3Field.getText());
-                    String result = "";
-                    try { while (HEX_MATCHER.find()) { result = HEX_MATCHER.group(0); } } catch (IllegalStateException ex) { result = "00"; }
-                    value = Integer.parseInt(result, 16);
-                    slider3Field.setText(result);
-                    slider3.setValue(value);
-                    break;
-                case 2:
-                    value = Helper.clamp(0, 100, (int) Helper.getNumberFromText(slider3Field.getText()));
-                    slider3Field.setText(Integer.toString(value));
-                    slider3.setValue(value);
-                    break;
-            }
-        });
+        // Pressing enter in or leaving a text field ends an interaction
+        slider1Field.focusedProperty().addListener((o, ov, nv) -> { if (!nv) { updateSliderFromTextField(slider1Field, slider1, 0); } });
+        slider2Field.focusedProperty().addListener((o, ov, nv) -> { if (!nv) { updateSliderFromTextField(slider2Field, slider2, 1); } });
+        slider3Field.focusedProperty().addListener((o, ov, nv) -> { if (!nv) { updateSliderFromTextField(slider3Field, slider3, 2); } });
 
-        slider1Field.setOnAction(e -> {
-            int value;
-            switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                case 0:
-                    value = Helper.clamp(0, 255, (int) Helper.getNumberFromText(slider1Field.getText()));
-                    slider1Field.setText(Integer.toString(value));
-                    slider1.setValue(value);
-                    break;
-                case 1:
-                    HEX_MATCHER.reset(slider1Field.getText());
-                    String result = "";
-                    try { while (HEX_MATCHER.find()) { result = HEX_MATCHER.group(0); } } catch (IllegalStateException ex) { result = "00"; }
-                    value = Integer.parseInt(result, 16);
-                    slider1Field.setText(result);
-                    slider1.setValue(value);
-                    break;
-                case 2:
-                    value = Helper.clamp(0, 360, (int) Helper.getNumberFromText(slider1Field.getText()));
-                    slider1Field.setText(Integer.toString(value));
-                    slider1.setValue(value);
-                    break;
-            }
-        });
-        slider2Field.setOnAction(e -> {
-            int value;
-            switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                case 0:
-                    value = Helper.clamp(0, 255, (int) Helper.getNumberFromText(slider2Field.getText()));
-                    slider2Field.setText(Integer.toString(value));
-                    slider2.setValue(value);
-                    break;
-                case 1:
-                    HEX_MATCHER.reset(slider2Field.getText());
-                    String result = "";
-                    try { while (HEX_MATCHER.find()) { result = HEX_MATCHER.group(0); } } catch (IllegalStateException ex) { result = "00"; }
-                    value = Integer.parseInt(result, 16);
-                    slider2Field.setText(result);
-                    slider2.setValue(value);
-                    break;
-                case 2:
-                    value = Helper.clamp(0, 100, (int) Helper.getNumberFromText(slider2Field.getText()));
-                    slider2Field.setText(Integer.toString(value));
-                    slider2.setValue(value);
-                    break;
-            }
-        });
-        slider3Field.setOnAction(e -> {
-            int value;
-            switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-                case 0:
-                    value = Helper.clamp(0, 255, (int) Helper.getNumberFromText(slider3Field.getText()));
-                    slider3Field.setText(Integer.toString(value));
-                    slider3.setValue(value);
-                    break;
-                case 1:
-                    HEX_MATCHER.reset(slider3Field.getText());
-                    String result = "";
-                    try { while (HEX_MATCHER.find()) { result = HEX_MATCHER.group(0); } } catch (IllegalStateException ex) { result = "00"; }
-                    value = Integer.parseInt(result, 16);
-                    slider3Field.setText(result);
-                    slider3.setValue(value);
-                    break;
-                case 2:
-                    value = Helper.clamp(0, 100, (int) Helper.getNumberFromText(slider3Field.getText()));
-                    slider3Field.setText(Integer.toString(value));
-                    slider3.setValue(value);
-                    break;
-            }
-        });
+        slider1Field.setOnAction(e -> updateSliderFromTextField(slider1Field, slider1, 0));
+        slider2Field.setOnAction(e -> updateSliderFromTextField(slider2Field, slider2, 1));
+        slider3Field.setOnAction(e -> updateSliderFromTextField(slider3Field, slider3, 2));
 
         colorField.setOnKeyPressed(evt -> {
-            if (KeyCode.ENTER.equals(evt.getCode())) {
-                String hexColor = Helper.getHexColorFromString(colorField.getText());
-                if (null == hexColor || hexColor.isEmpty()) { return; }
-                updateSliders(Color.web(hexColor));
-            }
+            if (KeyCode.ENTER.equals(evt.getCode())) { updateColorFromTextField(); }
         });
-        colorField.focusedProperty().addListener((o, ov, nv) -> {
-            if (!nv) {
-                String hexColor = Helper.getHexColorFromString(colorField.getText());
-                if (null == hexColor || hexColor.isEmpty()) { return; }
-                updateSliders(Color.web(hexColor));
-            }
+        colorField.focusedProperty().addListener((o, ov, nv) -> { if (!nv) { updateColorFromTextField(); } });
+
+        // Clicking the swatch snaps the selected color to the closest palette color
+        paletteSwatch.setOnMousePressed(e -> {
+            Color closest = getClosestPaletteColor();
+            if (null == closest) { return; }
+            applyColorAndCommit(ColorCache.get(PackedColor.withOpacity(Helper.toARGB(closest), opacitySlider.getValue())));
         });
 
         canvas.setOnMousePressed(e -> setColorByCanvas(e.getSceneX(), e.getSceneY()));
         canvas.setOnMouseDragged(e -> setColorByCanvas(e.getSceneX(), e.getSceneY()));
+        canvas.setOnMouseReleased(e -> commit());
+
+        // Releasing the mouse or a key on a slider ends an interaction
+        for (Slider slider : new Slider[] { slider1, slider2, slider3, opacitySlider }) {
+            slider.addEventFilter(MouseEvent.MOUSE_RELEASED, e -> commit());
+            slider.addEventFilter(KeyEvent.KEY_RELEASED, e -> commit());
+        }
 
         opacitySlider.valueProperty().addListener((o, ov, nv) -> {
-            String percentage = String.format(Locale.US, "%.0f%%", (nv.doubleValue() * 100));
-            opacityChooser.getEditor().setText(percentage);
-            if (fillSelector.isSelected()) {
-                setFill(Helper.getColorWithOpacity(getFill(), nv.doubleValue()));
-            } else {
-                setStroke(Helper.getColorWithOpacity(getStroke(), nv.doubleValue()));
-            }
-        });
-        opacityChooser.setOnAction(e -> {
-            double value = Helper.getNumberFromText(opacityChooser.getEditor().getText());
-            value = Helper.clamp(0, 100, value);
-            opacitySlider.setValue(value / 100);
-            if (fillSelector.isSelected()) {
-                setFill(Helper.getColorWithOpacity(getFill(), opacitySlider.getValue()));
-            } else {
-                setStroke(Helper.getColorWithOpacity(getStroke(), opacitySlider.getValue()));
-            }
-        });
-        opacityChooser.getEditor().focusedProperty().addListener((o, ov, nv) -> {
-            double value = Helper.getNumberFromText(opacityChooser.getEditor().getText());
-            value = Helper.clamp(0, 100, value);
-            opacitySlider.setValue(value / 100);
-            if (fillSelector.isSelected()) {
-                setFill(Helper.getColorWithOpacity(getFill(), opacitySlider.getValue()));
-            } else {
-                setStroke(Helper.getColorWithOpacity(getStroke(), opacitySlider.getValue()));
-            }
+            opacityChooser.getEditor().setText(ColorFormat.toPercent(nv.doubleValue()));
+            if (updating) { return; }
+            model.setOpacity(nv.doubleValue());
+            applyColor(ColorCache.get(model.getArgb()), ColorChannel.OPACITY, false);
         });
+        opacityChooser.setOnAction(e -> updateOpacityFromTextField());
+        opacityChooser.getEditor().focusedProperty().addListener((o, ov, nv) -> { if (!nv) { updateOpacityFromTextField(); } });
     }
 
     private void setColorByCanvas(final double sceneX, final double sceneY) {
+        if (null == spectrum) { return; }
         Bounds colorCanvasBounds = canvas.localToScene(canvas.getBoundsInLocal());
-        double x                 = sceneX - colorCanvasBounds.getMinX();
-        double y                 = sceneY - colorCanvasBounds.getMinY();
-        Color  color             = Helper.hslToRGB(x * xStep, 1, 1 - y * yStep);
-        updateSliders(color);
+        // The spectrum image might be scaled (HiDPI) or stretched (while a new one is rendered)
+        double scaleX            = spectrum.getWidth() / Math.ceil(canvas.getWidth());
+        double scaleY            = spectrum.getHeight() / Math.ceil(canvas.getHeight());
+        int    x                 = Helper.clamp(0, (int) spectrum.getWidth() - 1, (int) ((sceneX - colorCanvasBounds.getMinX()) * scaleX));
+        int    y                 = Helper.clamp(0, (int) spectrum.getHeight() - 1, (int) ((sceneY - colorCanvasBounds.getMinY()) * scaleY));
+        int    argb              = spectrum.getPixelReader().getArgb(x, y);
+        applyColor(ColorCache.get(PackedColor.withOpacity(argb, opacitySlider.getValue())), ColorChannel.ALL, true);
+    }
+
+    // Most choosers never show swatches, so the grid will be created when the first swatches are set
+    private void initSwatchGrid() {
+        swatchGrid = new SwatchGrid();
+        swatchGrid.setSelectionColor(BRIGHT_COLOR);
+        swatchGrid.setMinHeight(swatchGrid.getHeightForRows(2));
+        swatchGrid.setPrefHeight(swatchGrid.getHeightForRows(2));
+        grid.add(swatchGrid, 0, 8);
+        GridPane.setColumnSpan(swatchGrid, 3);
+
+        // Clicking a swatch applies its color with the current opacity
+        swatchGrid.setOnMousePressed(e -> {
+            int index = swatchGrid.indexAt(e.getX(), e.getY());
+            if (index < 0) { return; }
+            applyColorAndCommit(ColorCache.get(PackedColor.withOpacity(swatchGrid.getPalette().getArgb(index), opacitySlider.getValue())));
+        });
     }
 
 
@@ -655,10 +457,7 @@ public class ColorChooser extends Region {
     public void setFill(final Color fill) {
         if (null == this.fill) {
             _fill = fill;
-            if (fillSelector.isSelected() && fill instanceof Color) { opacitySlider.setValue(fill.getOpacity()); }
-            fillSelector.setFill(fill);
-            colorField.setText(fill.toString().replace("0x", "#").substring(0, 7));
-            fireColorChooserEvent(new ColorChooserEvent(ColorChooser.this, ColorChooserEventType.FILL));
+            onFillChanged(fill);
         } else {
             this.fill.set(fill);
         }
@@ -666,13 +465,7 @@ public class ColorChooser extends Region {
     public ObjectProperty<Color> fillProperty() {
         if (null == fill) {
             fill = new ObjectPropertyBase<Color>(_fill) {
-                @Override protected void invalidated() {
-                    Color fill = get();
-                    if (fillSelector.isSelected()) { opacitySlider.setValue(fill.getOpacity()); }
-                    fillSelector.setFill(fill);
-                    colorField.setText(fill.toString().replace("0x", "#").substring(0, 7));
-                    fireColorChooserEvent(new ColorChooserEvent(ColorChooser.this, ColorChooserEventType.FILL));
-                }
+                @Override protected void invalidated() { onFillChanged(get()); }
                 @Override public Object getBean() { return ColorChooser.this; }
                 @Override public String getName() { return "fill"; }
             };
@@ -685,10 +478,7 @@ public class ColorChooser extends Region {
     public void setStroke(final Color stroke) {
         if (null == this.stroke) {
             _stroke = stroke;
-            if (strokeSelector.isSelected()) { opacitySlider.setValue(stroke.getOpacity()); }
-            strokeSelector.setFill(stroke);
-            colorField.setText(stroke.toString().replace("0x", "#").substring(0, 7));
-            fireColorChooserEvent(new ColorChooserEvent(ColorChooser.this, ColorChooserEventType.STROKE));
+            onStrokeChanged(stroke);
         } else {
             this.stroke.set(stroke);
         }
@@ -696,13 +486,7 @@ public class ColorChooser extends Region {
     public ObjectProperty<Color> strokeProperty() {
         if (null == stroke) {
             stroke = new ObjectPropertyBase<Color>(_stroke) {
-                @Override protected void invalidated() {
-                    Color stroke = get();
-                    if (strokeSelector.isSelected()) { opacitySlider.setValue(stroke.getOpacity()); }
-                    strokeSelector.setFill(stroke);
-                    colorField.setText(stroke.toString().replace("0x", "#").substring(0, 7));
-                    fireColorChooserEvent(new ColorChooserEvent(ColorChooser.this, ColorChooserEventType.STROKE));
-                }
+                @Override protected void invalidated() { onStrokeChanged(get()); }
                 @Override public Object getBean() { return ColorChooser.this; }
                 @Override public String getName() { return "stroke"; }
             };
@@ -711,6 +495,160 @@ public class ColorChooser extends Region {
         return stroke;
     }
 
+    public DispatchMode getDispatchMode() { return null == dispatchMode ? _dispatchMode : dispatchMode.get(); }
+    /**
+     * Defines how ColorChooserEvents are delivered. In PULSE mode at most one
+     * FILL and one STROKE event per animation pulse will be delivered and a
+     * FILL_COMMIT or STROKE_COMMIT event will follow at the end of an interaction.
+     * @param dispatchMode The dispatch mode, IMMEDIATE by default
+     */
+    public void setDispatchMode(final DispatchMode dispatchMode) {
+        if (null == this.dispatchMode) {
+            _dispatchMode = null == dispatchMode ? DispatchMode.IMMEDIATE : dispatchMode;
+            flushPendingEvents();
+        } else {
+            this.dispatchMode.set(dispatchMode);
+        }
+    }
+    public ObjectProperty<DispatchMode> dispatchModeProperty() {
+        if (null == dispatchMode) {
+            dispatchMode = new ObjectPropertyBase<DispatchMode>(_dispatchMode) {
+                @Override protected void invalidated() {
+                    if (null == get()) { set(DispatchMode.IMMEDIATE); }
+                    flushPendingEvents();
+                }
+                @Override public Object getBean() { return ColorChooser.this; }
+                @Override public String getName() { return "dispatchMode"; }
+            };
+            _dispatchMode = null;
+        }
+        return dispatchMode;
+    }
+
+    public boolean isReuseEvents() { return reuseEvents; }
+    /**
+     * If true, the ColorChooser will use one ColorChooserEvent instance per event
+     * type and refill it on every change instead of creating a new event. This
+     * avoids garbage during drag interactions but observers must copy() an event
+     * if they want to keep it after onColorChooserEvent() returned.
+     * Events that are fired while another event is dispatched (e.g. because an
+     * observer calls setFill()) are always new instances, so the event that is
+     * currently dispatched won't be changed.
+     * @param reuseEvents If true the events will be reused, false by default
+     */
+    public void setReuseEvents(final boolean reuseEvents) { this.reuseEvents = reuseEvents; }
+
+    public boolean isHslLookupTableUsed() { return model.isHslLookupTableUsed(); }
+    /**
+     * If true, the HSL sliders will be converted to RGB by reading the shared
+     * HslLookupTable instead of computing the conversion. Hue and lightness
+     * will be rounded to whole degrees and percent.
+     * @param hslLookupTableUsed If true the HslLookupTable will be used, false by default
+     */
+    public void setHslLookupTableUsed(final boolean hslLookupTableUsed) { model.setHslLookupTableUsed(hslLookupTableUsed); }
+
+    /**
+     * @return A read only view of the swatch colors
+     */
+    public List<Color> getSwatches() {
+        final PaletteSource source = null == swatchGrid ? PaletteSource.of() : swatchGrid.getPalette();
+        return new AbstractList<Color>() {
+            @Override public Color get(final int index) { return ColorCache.get(source.getArgb(index)); }
+            @Override public int size() { return source.size(); }
+        };
+    }
+    /**
+     * Shows the given colors as quick pick swatches below the opacity slider,
+     * clicking a swatch applies its color with the current opacity.
+     * @param swatches The colors of the swatches, an empty list hides them
+     */
+    public void setSwatches(final List<Color> swatches) {
+        int[] argbs = new int[swatches.size()];
+        for (int i = 0 ; i < argbs.length ; i++) { argbs[i] = Helper.toARGB(swatches.get(i)); }
+        setSwatches(PaletteSource.of(argbs));
+    }
+    /**
+     * Shows the colors of the given palette as swatches, only the visible
+     * swatches will be read, so even a PaletteStore with millions of colors
+     * can be used.
+     * @param swatches The palette, an empty palette hides the swatches
+     */
+    public void setSwatches(final PaletteSource swatches) {
+        if (null != swatchTask) {
+            swatchTask.cancel(false);
+            swatchTask = null;
+        }
+        if (null == swatchGrid) {
+            if (0 == swatches.size()) { return; }
+            initSwatchGrid();
+        }
+        swatchGrid.setPalette(swatches);
+        swatchGrid.setVisible(swatches.size() > 0);
+        swatchGrid.setManaged(swatches.size() > 0);
+    }
+    /**
+     * Extracts the dominant colors of the given image off the FX application
+     * thread (see PaletteExtractor) and shows them as swatches once they are ready.
+     * @param image        The image
+     * @param noOfSwatches The max number of swatches
+     * @return A future that will be completed with the swatch colors, the most frequent first
+     */
+    public CompletableFuture<List<Color>> setSwatches(final Image image, final int noOfSwatches) {
+        if (null != swatchTask) { swatchTask.cancel(false); }
+        final CompletableFuture<int[]>       task   = PaletteExtractor.extractAsync(image, noOfSwatches);
+        final CompletableFuture<List<Color>> result = new CompletableFuture<>();
+        swatchTask = task;
+        task.whenComplete((argbs, throwable) -> Platform.runLater(() -> {
+            if (null != throwable) {
+                if (task == swatchTask) { swatchTask = null; }
+                result.completeExceptionally(throwable);
+                return;
+            }
+            List<Color> colors = new ArrayList<>(argbs.length);
+            for (int argb : argbs) { colors.add(ColorCache.get(argb)); }
+            if (task == swatchTask) {
+                swatchTask = null;
+                setSwatches(PaletteSource.of(argbs));
+            }
+            result.complete(colors);
+        }));
+        return result;
+    }
+
+    public ColorIndex getPaletteIndex() { return paletteIndex; }
+    /**
+     * Sets the palette whose closest color to the selected fill or stroke
+     * will be shown in a swatch next to the color field. The closest color is
+     * updated on every change (e.g. while dragging) and can be observed with
+     * closestPaletteColorProperty(). Clicking the swatch applies it.
+     * @param paletteIndex The index of the palette or null to hide the swatch
+     */
+    public void setPaletteIndex(final ColorIndex paletteIndex) {
+        this.paletteIndex = paletteIndex;
+        paletteSwatch.setVisible(null != paletteIndex);
+        paletteSwatch.setManaged(null != paletteIndex);
+        updateClosestPaletteColor();
+    }
+
+    /**
+     * @return The palette color that is closest to the selected fill or stroke or null if no palette index is set
+     */
+    public Color getClosestPaletteColor() { return null == closestPaletteColor ? _closestPaletteColor : closestPaletteColor.get(); }
+    private void setClosestPaletteColor(final Color closestPaletteColor) {
+        if (null == this.closestPaletteColor) {
+            _closestPaletteColor = closestPaletteColor;
+        } else {
+            this.closestPaletteColor.set(closestPaletteColor);
+        }
+    }
+    public ReadOnlyObjectProperty<Color> closestPaletteColorProperty() {
+        if (null == closestPaletteColor) {
+            closestPaletteColor = new ReadOnlyObjectWrapper<>(ColorChooser.this, "closestPaletteColor", _closestPaletteColor);
+            _closestPaletteColor = null;
+        }
+        return closestPaletteColor.getReadOnlyProperty();
+    }
+
     public boolean isFillSelected() { return fillSelector.isSelected(); }
     public boolean isStrokeSelected() { return strokeSelector.isSelected(); }
 
@@ -719,6 +657,42 @@ public class ColorChooser extends Region {
         strokeSelector.setSelectionColor(selectionColor);
     }
 
+    private void onFillChanged(final Color fill) {
+        // A change outside of a transaction was made by code, the user didn't change anything to commit
+        if (!updating) { committedFill = fill; }
+        if (fillSelector.isSelected()) { syncControls(fill); }
+        fillSelector.setFill(fill);
+        colorField.setText(ColorFormat.toWeb(Helper.toARGB(fill)));
+        if (fillSelector.isSelected()) {
+            updateClosestPaletteColor();
+            updateMarker();
+        }
+        dispatchColorChooserEvent(ColorChooserEventType.FILL, fill);
+    }
+
+    private void onStrokeChanged(final Color stroke) {
+        // A change outside of a transaction was made by code, the user didn't change anything to commit
+        if (!updating) { committedStroke = stroke; }
+        if (strokeSelector.isSelected()) { syncControls(stroke); }
+        strokeSelector.setFill(stroke);
+        colorField.setText(ColorFormat.toWeb(Helper.toARGB(stroke)));
+        if (strokeSelector.isSelected()) {
+            updateClosestPaletteColor();
+            updateMarker();
+        }
+        dispatchColorChooserEvent(ColorChooserEventType.STROKE, stroke);
+    }
+
+    private void updateClosestPaletteColor() {
+        Color closest = null;
+        if (null != paletteIndex && paletteIndex.size() > 0) {
+            Color color = fillSelector.isSelected() ? getFill() : getStroke();
+            closest = ColorCache.get(paletteIndex.nearestColor(Helper.toARGB(color)));
+        }
+        paletteSwatch.setFill(null == closest ? Color.TRANSPARENT : closest);
+        setClosestPaletteColor(closest);
+    }
+
     private TextField createSliderField(final String text) {
         TextField textField = new TextField(text);
         textField.setMinWidth(40);
@@ -728,80 +702,205 @@ public class ColorChooser extends Region {
         return textField;
     }
 
-    private void setSliders(final Color color) {
-        switch (colorModelChooser.getSelectionModel().getSelectedIndex()) {
-            case 0: // RGB
-                slider1.setValue(color.getRed() * 255);
-                slider2.setValue(color.getGreen() * 255);
-                slider3.setValue(color.getBlue() * 255);
-                opacitySlider.setValue(color.getOpacity());
-                break;
-            case 1: // RGB Hex
-                slider1.setValue(color.getRed() * 255);
-                slider2.setValue(color.getGreen() * 255);
-                slider3.setValue(color.getBlue() * 255);
-                opacitySlider.setValue(color.getOpacity());
-                break;
-            case 2: // HSL
-                double[] hsl = Helper.toHSL(color);
-                slider1.setValue(hsl[0]);
-                slider2.setValue(hsl[1] * 100.0);
-                slider3.setValue(hsl[2] * 100.0);
-                opacitySlider.setValue(color.getOpacity());
-                break;
-        }
-    }
-
-    private void updateSliders(final Color color) {
-        double red   = color.getRed()   * 255;
-        double green = color.getGreen() * 255;
-        double blue  = color.getBlue()  * 255;
-        switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-            case 0:
-            case 1:
-                slider1.setValue(red);
-                slider2.setValue(green);
-                slider3.setValue(blue);
-                break;
-            case 2:
-                double[] hsl = Helper.toHSL(color);
-                slider1.setValue(hsl[0]);
-                slider2.setValue(hsl[1] * 100);
-                slider3.setValue(hsl[2] * 100);
-                break;
-        }
-    }
-
-    private void updateSliderFromTextField(final TextField field, final Slider slider) {
-        int value;
-        switch(colorModelChooser.getSelectionModel().getSelectedIndex()) {
-            case 0:
-                value = Helper.clamp(0, 255, (int) Helper.getNumberFromText(field.getText()));
-                field.setText(Integer.toString(value));
-                slider.setValue(value);
-                break;
-            case 1:
-                HEX_MATCHER.reset(field.getText());
-                String result = "";
-                try { while (HEX_MATCHER.find()) { result = HEX_MATCHER.group(0); } } catch (IllegalStateException ex) { result = "00"; }
-                value = Integer.parseInt(result, 16);
-                field.setText(result);
-                slider.setValue(value);
-                break;
-            case 2:
-                value = Helper.clamp(0, 100, (int) Helper.getNumberFromText(field.getText()));
-                field.setText(Integer.toString(value));
-                slider.setValue(value);
-                break;
+    // Sets the controls to the given color without writing it back to the fill or stroke
+    private void syncControls(final Color color) {
+        if (updating) { return; }
+        updating = true;
+        try {
+            model.setArgb(Helper.toARGB(color));
+            slider1.setValue(model.getValue(0));
+            slider2.setValue(model.getValue(1));
+            slider3.setValue(model.getValue(2));
+            opacitySlider.setValue(model.getOpacity());
+            slider1Field.setText(model.format(0));
+            slider2Field.setText(model.format(1));
+            slider3Field.setText(model.format(2));
+        } finally {
+            updating = false;
+        }
+    }
+
+    /**
+     * Applies the given color to the selected fill or stroke as one transaction.
+     * All controls will be updated silently and only one ColorChooserEvent will be fired.
+     * If this is called by an observer while another color is applied, the color
+     * will be applied after the current transaction is finished.
+     * @param color The new color of the selected fill or stroke
+     */
+    public void applyColor(final Color color) { applyColor(color, ColorChannel.ALL, true); }
+    private void applyColor(final Color color, final ColorChannel channel, final boolean syncControls) {
+        if (updating) {
+            // Called by an observer during the transaction, only the last of these colors will be applied
+            deferredColor = color;
+            return;
+        }
+        if (syncControls) { syncControls(color); }
+        ColorChannel previousChannel = changedChannel;
+        updating       = true;
+        changedChannel = channel;
+        try {
+            if (fillSelector.isSelected()) {
+                setFill(color);
+            } else {
+                setStroke(color);
+            }
+        } finally {
+            updating       = false;
+            changedChannel = previousChannel;
         }
+        Color current = fillSelector.isSelected() ? getFill() : getStroke();
+        if (null != deferredColor) {
+            Color deferred = deferredColor;
+            deferredColor = null;
+            if (!deferred.equals(current)) { applyColor(deferred); }
+        } else if (!current.equals(color)) {
+            // An observer called setFill() or setStroke() during the transaction, the controls missed that change
+            syncControls(current);
+        }
+    }
+
+    private void applySlider(final int slider, final double value) {
+        ColorChannel channel = model.setValue(slider, value);
+        // Slider values repeat a lot while dragging, so the colors are taken from the cache
+        applyColor(ColorCache.get(model.getArgb()), channel, false);
+    }
+
+    // User changes that are complete (e.g. picks and clicks) are committed right away
+    private void applyColorAndCommit(final Color color) {
+        applyColor(color);
+        commit();
+    }
+
+    private void updateSliderFromTextField(final TextField field, final Slider slider, final int index) {
+        int value = model.parseValue(index, field.getText());
+        field.setText(model.formatValue(value));
+        slider.setValue(value);
+        commit();
+    }
+
+    // Accepts all CSS colors, the opacity will only be changed if the text contains an alpha value
+    private void updateColorFromTextField() {
+        if (!model.parseColor(colorField.getText())) { return; }
+        applyColor(ColorCache.get(model.getArgb()), ColorChannel.ALL, true);
+        commit();
+    }
+
+    private void updateOpacityFromTextField() {
+        opacitySlider.setValue(model.parseOpacity(opacityChooser.getEditor().getText()));
+        commit();
     }
 
 
     // ******************** Event handling ************************************
     public void addColorChooserObserver(final ColorChooserObserver observer) { if (!observers.contains(observer)) { observers.add(observer); }}
-    public void removeColorChooserObserver(final ColorChooserObserver observer) { if (observers.contains(observer)) { observers.remove(observer); }}
+    /**
+     * Adds an observer that will be called on the given executor instead of the
+     * FX application thread. Events are delivered in the order they were fired.
+     * If the observer can't keep up, intermediate FILL and STROKE events will be
+     * dropped in favour of newer ones, commit events are never dropped.
+     * Use Helper.createVirtualThreadExecutor() to run it on virtual threads.
+     * @param observer The observer
+     * @param executor The executor that will be used to call the observer
+     */
+    public void addColorChooserObserver(final ColorChooserObserver observer, final Executor executor) {
+        if (observers.contains(observer)) { return; }
+        for (ObserverLane<ColorChooserEvent> lane : asyncObservers) { if (lane.getObserver() == observer) { return; } }
+        asyncObservers.add(new ObserverLane<>(observer, executor, observer::onColorChooserEvent, ColorChooser::coalesceKey));
+    }
+    public void removeColorChooserObserver(final ColorChooserObserver observer) {
+        if (observers.contains(observer)) { observers.remove(observer); }
+        asyncObservers.removeIf(lane -> lane.getObserver() == observer);
+    }
 
-    public void fireColorChooserEvent(final ColorChooserEvent evt) { for (ColorChooserObserver observer : observers) { observer.onColorChooserEvent(evt); }}
+    public void fireColorChooserEvent(final ColorChooserEvent evt) {
+        // Observers might change the color again, those events must not refill the one that is dispatched here
+        dispatchDepth++;
+        try {
+            for (ColorChooserObserver observer : observers) { observer.onColorChooserEvent(evt); }
+            if (asyncObservers.isEmpty()) { return; }
+            // Reusable events will be refilled on the next change, so the async observers get their own copy
+            ColorChooserEvent asyncEvent = evt.isReusable() ? evt.copy() : evt;
+            for (ObserverLane<ColorChooserEvent> lane : asyncObservers) { lane.offer(asyncEvent); }
+        } finally {
+            dispatchDepth--;
+        }
+    }
+
+    private void dispatchColorChooserEvent(final ColorChooserEventType type, final Color color) {
+        if (DispatchMode.IMMEDIATE == getDispatchMode()) {
+            fireColorChooserEvent(createEvent(type, color, report(type, color), changedChannel));
+            return;
+        }
+        // Only remember that there is a change, the event will be fired with the latest color on the next pulse
+        if (ColorChooserEventType.FILL == type) {
+            pendingFillChannel = fillPending && pendingFillChannel != changedChannel ? ColorChannel.ALL : changedChannel;
+            fillPending        = true;
+        } else {
+            pendingStrokeChannel = strokePending && pendingStrokeChannel != changedChannel ? ColorChannel.ALL : changedChannel;
+            strokePending        = true;
+        }
+        pulseDispatcher.start();
+    }
+
+    private void flushPendingEvents() {
+        pulseDispatcher.stop();
+        if (fillPending) {
+            fillPending = false;
+            Color fill = getFill();
+            fireColorChooserEvent(createEvent(ColorChooserEventType.FILL, fill, report(ColorChooserEventType.FILL, fill), pendingFillChannel));
+        }
+        if (strokePending) {
+            strokePending = false;
+            Color stroke = getStroke();
+            fireColorChooserEvent(createEvent(ColorChooserEventType.STROKE, stroke, report(ColorChooserEventType.STROKE, stroke), pendingStrokeChannel));
+        }
+    }
+
+    // Ends a user interaction, all user changes (dragging, sliders, text fields, swatches and the
+    // ColorPicker of the selectors) end up here. Only fires a commit if the color changed since the last one.
+    private void commit() {
+        if (DispatchMode.PULSE != getDispatchMode()) { return; }
+        flushPendingEvents();
+        // The commit event contains the color before the interaction as old color
+        if (fillSelector.isSelected()) {
+            if (committedFill.equals(getFill())) { return; }
+            Color oldColor = committedFill;
+            committedFill = getFill();
+            fireColorChooserEvent(createEvent(ColorChooserEventType.FILL_COMMIT, committedFill, oldColor, ColorChannel.ALL));
+        } else {
+            if (committedStroke.equals(getStroke())) { return; }
+            Color oldColor = committedStroke;
+            committedStroke = getStroke();
+            fireColorChooserEvent(createEvent(ColorChooserEventType.STROKE_COMMIT, committedStroke, oldColor, ColorChannel.ALL));
+        }
+    }
+
+    // Returns the color that was reported by the last event of the given type and remembers the new one
+    private Color report(final ColorChooserEventType type, final Color color) {
+        Color oldColor;
+        if (ColorChooserEventType.FILL == type) {
+            oldColor     = reportedFill;
+            reportedFill = color;
+        } else {
+            oldColor       = reportedStroke;
+            reportedStroke = color;
+        }
+        return oldColor;
+    }
+
+    private ColorChooserEvent createEvent(final ColorChooserEventType type, final Color color, final Color oldColor, final ColorChannel channel) {
+        if (reuseEvents && 0 == dispatchDepth) { return events[type.ordinal()].set(type, color, oldColor, channel); }
+        return new ColorChooserEvent(ColorChooser.this, type, color, oldColor, channel);
+    }
+
+    // Intermediate events may be replaced by newer ones of the same type, commits are always delivered
+    private static int coalesceKey(final ColorChooserEvent evt) {
+        switch (evt.getType()) {
+            case FILL  : return ColorChooserEventType.FILL.ordinal();
+            case STROKE: return ColorChooserEventType.STROKE.ordinal();
+            default    : return ObserverLane.NO_COALESCE;
+        }
+    }
 
 
     // ******************** Resizing ******************************************
@@ -819,6 +918,8 @@ public class ColorChooser extends Region {
 
             canvas.setWidth(width);
             canvas.setHeight(width / 5);
+            overlay.setWidth(width);
+            overlay.setHeight(width / 5);
 
             redraw();
         }
@@ -826,17 +927,86 @@ public class ColorChooser extends Region {
 
     private void redraw() {
         drawColorCanvas();
+        // A resized overlay is cleared, so the marker has to be drawn completely again
+        markerX = -1;
+        overlayCtx.clearRect(0, 0, overlay.getWidth(), overlay.getHeight());
+        updateMarker();
     }
 
     private void drawColorCanvas() {
-        xStep = 360 / canvas.getWidth();
-        yStep = 1 / canvas.getHeight();
-        ctx.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-        for (int y = 0; y < canvas.getHeight() ; y++) {
-            for (int x = 0; x < canvas.getWidth() ; x++) {
-                ctx.setStroke(Helper.hslToRGB(x * xStep, 1, 1 - y * yStep));
-                ctx.strokeLine(x, y, x, y);
-            }
+        double canvasWidth  = Math.ceil(canvas.getWidth());
+        double canvasHeight = Math.ceil(canvas.getHeight());
+        if (canvasWidth <= 0 || canvasHeight <= 0) { return; }
+
+        // A new size makes a pending render obsolete
+        if (null != spectrumTask) {
+            spectrumTask.cancel(false);
+            spectrumTask = null;
+        }
+
+        // The spectrum only depends on the size, so all choosers with the same size share one image
+        double        outputScale = Helper.getOutputScale(canvas);
+        WritableImage image       = SpectrumCache.getIfPresent(canvasWidth, canvasHeight, outputScale);
+        int           pixelWidth  = SpectrumCache.getPixelWidth(canvasWidth, outputScale);
+        int           pixelHeight = SpectrumCache.getPixelHeight(canvasHeight, outputScale);
+        if (null == image && pixelWidth * pixelHeight < SpectrumRenderer.PARALLEL_THRESHOLD) {
+            image = SpectrumCache.put(canvasWidth, canvasHeight, outputScale, SpectrumRenderer.createImage(pixelWidth, pixelHeight));
+        }
+        if (null != image) {
+            setSpectrum(image);
+            return;
         }
+
+        // Large spectra are rendered in parallel off the FX application thread, until they
+        // are ready the current spectrum will be stretched to the new size of the canvas
+        if (null != spectrum) { setSpectrum(spectrum); }
+        final CompletableFuture<int[]> task = SpectrumRenderer.renderAsync(pixelWidth, pixelHeight);
+        spectrumTask = task;
+        task.whenComplete((buffer, throwable) -> Platform.runLater(() -> {
+            if (task != spectrumTask) { return; }
+            spectrumTask = null;
+            if (null == throwable) {
+                setSpectrum(SpectrumCache.put(canvasWidth, canvasHeight, outputScale, SpectrumRenderer.toImage(buffer, pixelWidth, pixelHeight)));
+            } else {
+                // The parallel rendering failed or was rejected, render the spectrum on this thread instead
+                throwable.printStackTrace();
+                setSpectrum(SpectrumCache.put(canvasWidth, canvasHeight, outputScale, SpectrumRenderer.createImage(pixelWidth, pixelHeight)));
+            }
+        }));
+    }
+
+    private void setSpectrum(final WritableImage image) {
+        spectrum = image;
+        ctx.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        ctx.drawImage(spectrum, 0, 0, Math.ceil(canvas.getWidth()), Math.ceil(canvas.getHeight()));
+    }
+
+    /**
+     * Moves the crosshair on the overlay to the hue (x) and lightness (y) of
+     * the selected fill or stroke. Only the area of the previous and the new
+     * marker will be redrawn, the spectrum below stays untouched.
+     */
+    private void updateMarker() {
+        double overlayWidth  = overlay.getWidth();
+        double overlayHeight = overlay.getHeight();
+        if (overlayWidth <= 0 || overlayHeight <= 0) { return; }
+        Color color = fillSelector.isSelected() ? getFill() : getStroke();
+        PackedColor.rgbToHsl(Helper.toARGB(color), markerHsl);
+        double x = Math.round(Helper.clamp(0.0, overlayWidth - 1, markerHsl[0] / 360.0 * overlayWidth)) + 0.5;
+        double y = Math.round(Helper.clamp(0.0, overlayHeight - 1, (1.0 - markerHsl[2]) * overlayHeight)) + 0.5;
+        if (x == markerX && y == markerY) { return; }
+
+        // Dirty rectangle of the previous marker including the line width
+        double extent = MARKER_SIZE + 1;
+        if (markerX >= 0) { overlayCtx.clearRect(markerX - extent, markerY - extent, 2 * extent, 2 * extent); }
+        markerX = x;
+        markerY = y;
+
+        overlayCtx.setStroke(markerHsl[2] > 0.5 ? DARK_COLOR : BRIGHT_COLOR);
+        overlayCtx.setLineWidth(1);
+        overlayCtx.strokeLine(x - MARKER_SIZE, y, x - MARKER_GAP, y);
+        overlayCtx.strokeLine(x + MARKER_GAP, y, x + MARKER_SIZE, y);
+        overlayCtx.strokeLine(x, y - MARKER_SIZE, x, y - MARKER_GAP);
+        overlayCtx.strokeLine(x, y + MARKER_GAP, x, y + MARKER_SIZE);
     }
 }
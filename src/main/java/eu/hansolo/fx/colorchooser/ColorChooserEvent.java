@@ -16,15 +16,39 @@
 
 package eu.hansolo.fx.colorchooser;
 
+import javafx.scene.paint.Color;
+
+
+/**
+ * Event that will be fired by the ColorChooser if the fill or stroke changed.
+ * It contains the new and the previous color and the channel that changed.
+ * If the ColorChooser reuses its events (see ColorChooser.setReuseEvents()),
+ * the same instance will be refilled on every change, so observers that need
+ * to keep an event after returning from onColorChooserEvent() must copy() it.
+ */
 public class ColorChooserEvent {
     private final ColorChooser          colorChooser;
-    private final ColorChooserEventType type;
+    private final boolean               reusable;
+    private       ColorChooserEventType type;
+    private       Color                 color;
+    private       Color                 oldColor;
+    private       ColorChannel          channel;
 
 
     // ******************** Constructors **************************************
     public ColorChooserEvent(final ColorChooser colorChooser, final ColorChooserEventType type) {
+        this(colorChooser, type, getColor(colorChooser, type), getColor(colorChooser, type), ColorChannel.ALL);
+    }
+    public ColorChooserEvent(final ColorChooser colorChooser, final ColorChooserEventType type, final Color color, final Color oldColor, final ColorChannel channel) {
+        this(colorChooser, type, color, oldColor, channel, false);
+    }
+    ColorChooserEvent(final ColorChooser colorChooser, final ColorChooserEventType type, final Color color, final Color oldColor, final ColorChannel channel, final boolean reusable) {
         this.colorChooser = colorChooser;
+        this.reusable     = reusable;
         this.type         = type;
+        this.color        = color;
+        this.oldColor     = oldColor;
+        this.channel      = channel;
     }
 
 
@@ -32,5 +56,42 @@ public class ColorChooserEvent {
     public ColorChooser getColorChooser() { return colorChooser; }
 
     public ColorChooserEventType getType() { return type; }
-}
 
+    /**
+     * @return The new fill or stroke color (depending on the type of the event)
+     */
+    public Color getColor() { return color; }
+
+    /**
+     * @return The fill or stroke color that was reported by the previous event of the same kind
+     */
+    public Color getOldColor() { return oldColor; }
+
+    public ColorChannel getChannel() { return channel; }
+
+    /**
+     * @return True if this instance will be reused by the ColorChooser for the next change
+     */
+    public boolean isReusable() { return reusable; }
+
+    /**
+     * @return A copy of this event that will not be modified by the ColorChooser
+     */
+    public ColorChooserEvent copy() { return new ColorChooserEvent(colorChooser, type, color, oldColor, channel, false); }
+
+    ColorChooserEvent set(final ColorChooserEventType type, final Color color, final Color oldColor, final ColorChannel channel) {
+        this.type     = type;
+        this.color    = color;
+        this.oldColor = oldColor;
+        this.channel  = channel;
+        return this;
+    }
+
+    private static Color getColor(final ColorChooser colorChooser, final ColorChooserEventType type) {
+        switch(type) {
+            case STROKE       :
+            case STROKE_COMMIT: return colorChooser.getStroke();
+            default           : return colorChooser.getFill();
+        }
+    }
+}
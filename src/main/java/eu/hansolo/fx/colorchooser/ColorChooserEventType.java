@@ -16,4 +16,4 @@
 
 package eu.hansolo.fx.colorchooser;
 
-public enum ColorChooserEventType { FILL, STROKE }
+public enum ColorChooserEventType { FILL, STROKE, FILL_COMMIT, STROKE_COMMIT }
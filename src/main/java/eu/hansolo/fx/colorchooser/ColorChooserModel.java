@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser;
+
+import eu.hansolo.fx.colorchooser.tool.ColorFormat;
+import eu.hansolo.fx.colorchooser.tool.ColorParser;
+import eu.hansolo.fx.colorchooser.tool.HslLookupTable;
+import eu.hansolo.fx.colorchooser.tool.PackedColor;
+
+
+/**
+ * The state of the ColorChooser without any JavaFX dependency: the color as
+ * packed ARGB int (see PackedColor), the color model and the values of the
+ * three sliders and the opacity slider. It maps slider values and texts to
+ * colors and back exactly like the ColorChooser does, so it can be used to
+ * apply the same color semantics without a running toolkit, e.g. on a server.
+ * The ColorChooser keeps its controls in sync with an instance of this class.
+ * Instances are not thread safe.
+ */
+public class ColorChooserModel {
+    public  static final int        NO_OF_SLIDERS = 3;
+    private static final double[]   RGB_MAX       = { 255, 255, 255 };
+    private static final double[]   HSL_MAX       = { 360, 100, 100 };
+    private static final String[]   RGB_LABELS    = { "R", "G", "B" };
+    private static final String[]   HSL_LABELS    = { "H", "S", "L" };
+    private        final double[]   values;
+    private        final double[]   hsl;
+    private              ColorModel colorModel;
+    private              int        argb;
+    private              double     opacity;
+    private              boolean    hslLookupTableUsed;
+
+
+    // ******************** Constructors **************************************
+    public ColorChooserModel() {
+        this(0xFF000000);
+    }
+    public ColorChooserModel(final int argb) {
+        values             = new double[NO_OF_SLIDERS];
+        hsl                = new double[3];
+        colorModel         = ColorModel.RGB;
+        hslLookupTableUsed = false;
+        setArgb(argb);
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * @return The color as packed ARGB int
+     */
+    public int getArgb() { return argb; }
+    /**
+     * Sets the color and updates the slider values and the opacity.
+     * @param argb The color as packed ARGB int
+     */
+    public void setArgb(final int argb) {
+        this.argb    = argb;
+        this.opacity = PackedColor.opacity(argb);
+        updateValues();
+    }
+
+    public ColorModel getColorModel() { return colorModel; }
+    /**
+     * Switching the color model doesn't change the color, only the slider values
+     * will be converted to the new model.
+     */
+    public void setColorModel(final ColorModel colorModel) {
+        this.colorModel = null == colorModel ? ColorModel.RGB : colorModel;
+        updateValues();
+    }
+
+    /**
+     * If true HSL values will be converted with the HslLookupTable instead of
+     * PackedColor.hslToArgb(), which is faster but might differ by one per channel.
+     */
+    public boolean isHslLookupTableUsed() { return hslLookupTableUsed; }
+    public void setHslLookupTableUsed(final boolean hslLookupTableUsed) { this.hslLookupTableUsed = hslLookupTableUsed; }
+
+    /**
+     * @param slider The index of the slider (0 - 2)
+     * @return The value of the given slider in the range of 0 - getMax(slider)
+     */
+    public double getValue(final int slider) { return values[slider]; }
+    /**
+     * Sets the value of the given slider and computes the new color from all
+     * slider values and the opacity.
+     * @param slider The index of the slider (0 - 2)
+     * @param value  The new value, will be clamped to 0 - getMax(slider)
+     * @return The channel that was changed
+     */
+    public ColorChannel setValue(final int slider, final double value) {
+        values[slider] = Math.max(0, Math.min(getMax(slider), value));
+        if (ColorModel.HSL == colorModel) {
+            argb = hslLookupTableUsed ? HslLookupTable.hslToArgb(values[0], values[1] / 100.0, values[2] / 100.0, opacity)
+                                      : PackedColor.hslToArgb(values[0], values[1] / 100.0, values[2] / 100.0, opacity);
+        } else {
+            argb = PackedColor.argb(PackedColor.toByte(opacity), (int) values[0], (int) values[1], (int) values[2]);
+        }
+        return getChannel(slider);
+    }
+
+    public double getMax(final int slider) { return ColorModel.HSL == colorModel ? HSL_MAX[slider] : RGB_MAX[slider]; }
+
+    public String getLabel(final int slider) { return ColorModel.HSL == colorModel ? HSL_LABELS[slider] : RGB_LABELS[slider]; }
+
+    public ColorChannel getChannel(final int slider) {
+        if (ColorModel.HSL == colorModel) {
+            return 0 == slider ? ColorChannel.HUE : 1 == slider ? ColorChannel.SATURATION : ColorChannel.LIGHTNESS;
+        } else {
+            return 0 == slider ? ColorChannel.RED : 1 == slider ? ColorChannel.GREEN : ColorChannel.BLUE;
+        }
+    }
+
+    /**
+     * @return The opacity in the range of 0 - 1
+     */
+    public double getOpacity() { return opacity; }
+    /**
+     * Sets the opacity without changing the slider values.
+     * @param opacity The new opacity, will be clamped to 0 - 1
+     */
+    public void setOpacity(final double opacity) {
+        this.opacity = Math.max(0, Math.min(1, opacity));
+        this.argb    = PackedColor.withOpacity(argb, this.opacity);
+    }
+
+    /**
+     * @return The text of the given slider value (hex for RGB_HEX, decimal otherwise)
+     */
+    public String format(final int slider) { return formatValue(values[slider]); }
+    public String formatValue(final double value) { return ColorModel.RGB_HEX == colorModel ? ColorFormat.toHex((int) value) : ColorFormat.toDecimal((int) value); }
+
+    /**
+     * Parses the text of a slider field, hex digits for RGB_HEX and the last number otherwise.
+     * @param slider The index of the slider (0 - 2)
+     * @param text   The text
+     * @return The parsed value clamped to the range of the slider or the current value if the text contains no value
+     */
+    public int parseValue(final int slider, final CharSequence text) {
+        if (ColorModel.RGB_HEX == colorModel) {
+            return ColorParser.parseHexByte(text, (int) values[slider]);
+        } else {
+            return (int) Math.max(0, Math.min(getMax(slider), (int) ColorParser.parseNumber(text, values[slider])));
+        }
+    }
+
+    /**
+     * Parses a CSS color (see ColorParser) and sets it as new color. The opacity
+     * will only be changed if the text contains an alpha value.
+     * @return True if the text contains a valid color
+     */
+    public boolean parseColor(final CharSequence text) {
+        long result = ColorParser.tryParse(text);
+        if (ColorParser.INVALID == result) { return false; }
+        int argb = ColorParser.toArgb(result);
+        setArgb(ColorParser.hasAlpha(result) ? argb : PackedColor.withOpacity(argb, opacity));
+        return true;
+    }
+
+    /**
+     * Parses the last number of the text as opacity in percent (e.g. "80%").
+     * @return The parsed opacity in the range of 0 - 1 or the current opacity if the text contains no number
+     */
+    public double parseOpacity(final CharSequence text) { return Math.max(0, Math.min(100, ColorParser.parseNumber(text, opacity * 100))) / 100; }
+
+    public String getWeb() { return ColorFormat.toWeb(argb); }
+
+    public String getOpacityText() { return ColorFormat.toPercent(opacity); }
+
+    private void updateValues() {
+        if (ColorModel.HSL == colorModel) {
+            PackedColor.rgbToHsl(argb, hsl);
+            values[0] = hsl[0];
+            values[1] = hsl[1] * 100.0;
+            values[2] = hsl[2] * 100.0;
+        } else {
+            values[0] = PackedColor.red(argb);
+            values[1] = PackedColor.green(argb);
+            values[2] = PackedColor.blue(argb);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser;
+
+/**
+ * The color models of the ColorChooser sliders.
+ * RGB    : Red, green and blue in the range of 0 - 255 as decimal numbers
+ * RGB_HEX: Red, green and blue in the range of 0 - 255 as hex numbers
+ * HSL    : Hue in degrees (0 - 360), saturation and lightness in percent (0 - 100)
+ */
+public enum ColorModel { RGB, RGB_HEX, HSL }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.paint.Color;
+import javafx.stage.Popup;
+
+import java.util.function.Consumer;
+
+
+/**
+ * One ColorChooser in a Popup that is shared by all ColorTableCells and
+ * ColorListCells, so the memory doesn't grow with the number of rows. The
+ * chooser and the popup will be created when the first cell starts editing.
+ * While a cell is edited the editor only keeps the callbacks of that cell,
+ * they will be released when the popup is hidden. Hiding the popup by
+ * clicking somewhere else commits the color, ESCAPE cancels the edit.
+ * Must only be used on the FX application thread.
+ */
+final class ColorPopupEditor {
+    private static       ColorPopupEditor instance;
+    private        final ColorChooser     colorChooser;
+    private        final Popup            popup;
+    private              Node             owner;
+    private              Consumer<Color>  onCommit;
+    private              Runnable         onCancel;
+
+
+    // ******************** Constructors **************************************
+    private ColorPopupEditor() {
+        colorChooser = new ColorChooser();
+        popup        = new Popup();
+        popup.setAutoHide(true);
+        popup.setAutoFix(true);
+        // ESCAPE cancels the edit instead of hiding the popup like a click outside of it
+        popup.setHideOnEscape(false);
+        popup.getContent().setAll(colorChooser);
+
+        registerListeners();
+    }
+
+
+    // ******************** Initialization ************************************
+    private void registerListeners() {
+        colorChooser.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (KeyCode.ESCAPE != e.getCode()) { return; }
+            e.consume();
+            finish(false);
+        });
+        popup.setOnHidden(e -> finish(true));
+    }
+
+
+    // ******************** Methods *******************************************
+    static ColorPopupEditor getInstance() {
+        if (null == instance) { instance = new ColorPopupEditor(); }
+        return instance;
+    }
+
+    ColorChooser getColorChooser() { return colorChooser; }
+
+    /**
+     * Shows the shared chooser below the given node. An edit of another node
+     * that is still in progress will be committed first.
+     * @param owner    The node that is edited, usually a cell
+     * @param color    The color that will be edited
+     * @param onCommit Will be called with the new color when the popup was closed
+     * @param onCancel Will be called if the edit was cancelled with ESCAPE
+     */
+    void edit(final Node owner, final Color color, final Consumer<Color> onCommit, final Runnable onCancel) {
+        if (null != this.owner) { finish(true); }
+        if (null == owner.getScene() || null == owner.getScene().getWindow()) {
+            onCancel.run();
+            return;
+        }
+        Color initial = null == color ? Color.BLACK : color;
+        colorChooser.setFill(initial);
+        colorChooser.setStroke(initial);
+        this.owner    = owner;
+        this.onCommit = onCommit;
+        this.onCancel = onCancel;
+
+        Bounds bounds = owner.localToScreen(owner.getBoundsInLocal());
+        popup.show(owner, bounds.getMinX(), bounds.getMaxY());
+    }
+
+    /**
+     * Hides the popup without calling the callbacks if the given node is
+     * edited at the moment, e.g. because the cell cancelled the edit itself.
+     * Doesn't create the editor if no cell was edited so far.
+     */
+    static void release(final Node owner) {
+        if (null == instance || null == instance.owner || instance.owner != owner) { return; }
+        instance.clear();
+        instance.popup.hide();
+    }
+
+    private void finish(final boolean commit) {
+        if (null == owner) { return; }
+        Consumer<Color> commitCallback = onCommit;
+        Runnable        cancelCallback = onCancel;
+        // The references to the cell are released before the callbacks run, they might start a new edit
+        clear();
+        if (popup.isShowing()) { popup.hide(); }
+        if (commit) {
+            commitCallback.accept(colorChooser.isFillSelected() ? colorChooser.getFill() : colorChooser.getStroke());
+        } else {
+            cancelCallback.run();
+        }
+    }
+
+    private void clear() {
+        owner    = null;
+        onCommit = null;
+        onCancel = null;
+    }
+}
@@ -44,6 +44,7 @@ import javafx.scene.shape.Rectangle;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 
 /**
@@ -62,6 +63,7 @@ public class ColorSelector extends Region implements Toggle {
     private static final PseudoClass                             SELECTED_PSEUDO_CLASS = PseudoClass.getPseudoClass("selected");
     private static final StyleablePropertyFactory<ColorSelector> FACTORY               = new StyleablePropertyFactory<>(Region.getClassCssMetaData());
     private static final CssMetaData<ColorSelector, Color>       SELECTION_COLOR       = FACTORY.createColorCssMetaData("-selection-color", s -> s.selectionColor, Color.web("#353535"), false);
+    private static final String                                  STYLE_SHEET           = ColorSelector.class.getResource("colorselector.css").toExternalForm();
     private        final StyleableProperty<Color>                selectionColor;
     private              double                                  size;
     private              double                                  width;
@@ -78,6 +80,7 @@ public class ColorSelector extends Region implements Toggle {
     private              ObjectProperty<ToggleGroup>             toggleGroup;
     private              ColorPicker                             colorPicker;
     private              List<ColorSelectorObserver>             observers;
+    private              List<ObserverLane<ColorSelectorEvent>>  asyncObservers;
 
 
     // ******************** Constructors **************************************
@@ -85,14 +88,14 @@ public class ColorSelector extends Region implements Toggle {
         this("", Color.BLACK);
     }
     public ColorSelector(final String text, final Color fill) {
-        getStylesheets().add(ColorSelector.class.getResource("colorselector.css").toExternalForm());
+        getStylesheets().add(STYLE_SHEET);
         this.fill      = fill;
         selectionColor = new SimpleStyleableObjectProperty<>(SELECTION_COLOR, this, "selectionColor");
         _text          = text;
         _selected      = false;
         _toggleGroup   = null;
-        colorPicker    = new ColorPicker();
         observers      = new CopyOnWriteArrayList<>();
+        asyncObservers = new CopyOnWriteArrayList<>();
 
         setSelectionColor(SELECTION_COLOR.getInitialValue(ColorSelector.this));
 
@@ -119,10 +122,7 @@ public class ColorSelector extends Region implements Toggle {
 
         rectangle = new Rectangle(20, 10);
 
-        colorPicker.setVisible(false);
-        colorPicker.setManaged(false);
-
-        pane = new HBox(5, textLabel, rectangle, colorPicker);
+        pane = new HBox(5, textLabel, rectangle);
         pane.setAlignment(Pos.CENTER);
 
         pane.setPadding(new Insets(2));
@@ -142,15 +142,26 @@ public class ColorSelector extends Region implements Toggle {
             }
         });
         setOnMouseClicked(e -> { if (e.getClickCount() == 2) {
-            colorPicker.setValue(getFill());
-            colorPicker.show();
+            ColorPicker picker = getColorPicker();
+            picker.setValue(getFill());
+            picker.show();
         } });
         selectedProperty().addListener((o, ov, nv) -> rectangle.setStroke(nv ? getSelectionColor() : Color.TRANSPARENT));
+    }
 
-        colorPicker.valueProperty().addListener(o -> {
-            setFill(colorPicker.getValue());
-            fireColorSelectorEvent(new ColorSelectorEvent(ColorSelector.this, colorPicker.getValue()));
-        });
+    // The ColorPicker is only needed after a double click, so it will be created on first use
+    private ColorPicker getColorPicker() {
+        if (null == colorPicker) {
+            colorPicker = new ColorPicker(getFill());
+            colorPicker.setVisible(false);
+            colorPicker.setManaged(false);
+            colorPicker.valueProperty().addListener(o -> {
+                setFill(colorPicker.getValue());
+                fireColorSelectorEvent(new ColorSelectorEvent(ColorSelector.this, colorPicker.getValue()));
+            });
+            pane.getChildren().add(colorPicker);
+        }
+        return colorPicker;
     }
 
 
@@ -198,7 +209,6 @@ public class ColorSelector extends Region implements Toggle {
     public Color getSelectionColor() { return selectionColor.getValue(); }
     public void setSelectionColor(final Color selectionColor) {
         this.selectionColor.setValue(selectionColor);
-        this.colorPicker.setValue(selectionColor);
     }
     public ObjectProperty<Color> selectionColorProperty() { return (ObjectProperty<Color>) selectionColor; }
 
@@ -275,9 +285,27 @@ public class ColorSelector extends Region implements Toggle {
 
     // ******************** Event handling ************************************
     public void addColorSelectorObserver(final ColorSelectorObserver observer) { if (!observers.contains(observer)) { observers.add(observer); }}
-    public void removeColorSelectorObserver(final ColorSelectorObserver observer) { if (observers.contains(observer)) { observers.remove(observer); }}
+    /**
+     * Adds an observer that will be called on the given executor instead of the
+     * FX application thread. If the observer can't keep up, older events will be
+     * dropped and only the latest event will be delivered.
+     * @param observer The observer
+     * @param executor The executor that will be used to call the observer
+     */
+    public void addColorSelectorObserver(final ColorSelectorObserver observer, final Executor executor) {
+        if (observers.contains(observer)) { return; }
+        for (ObserverLane<ColorSelectorEvent> lane : asyncObservers) { if (lane.getObserver() == observer) { return; } }
+        asyncObservers.add(new ObserverLane<>(observer, executor, observer::onColorChanged, evt -> 0));
+    }
+    public void removeColorSelectorObserver(final ColorSelectorObserver observer) {
+        if (observers.contains(observer)) { observers.remove(observer); }
+        asyncObservers.removeIf(lane -> lane.getObserver() == observer);
+    }
 
-    public void fireColorSelectorEvent(final ColorSelectorEvent evt) { for (ColorSelectorObserver observer : observers) { observer.onColorChanged(evt); }}
+    public void fireColorSelectorEvent(final ColorSelectorEvent evt) {
+        for (ColorSelectorObserver observer : observers) { observer.onColorChanged(evt); }
+        for (ObserverLane<ColorSelectorEvent> lane : asyncObservers) { lane.offer(evt); }
+    }
 
 
     // ******************** Resizing ******************************************
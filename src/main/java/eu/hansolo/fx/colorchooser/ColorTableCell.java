@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser;
+
+import eu.hansolo.fx.colorchooser.tool.ColorFormat;
+import eu.hansolo.fx.colorchooser.tool.Helper;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.util.Callback;
+
+
+/**
+ * TableCell that only shows a swatch and the web color of its item. On edit
+ * the shared ColorChooser popup (see ColorPopupEditor) will be shown below
+ * the cell, so even tables with many rows don't need a chooser per row.
+ * Usage: column.setCellFactory(ColorTableCell.forTableColumn());
+ */
+public class ColorTableCell<S> extends TableCell<S, Color> {
+    private static final double    SWATCH_WIDTH  = 20;
+    private static final double    SWATCH_HEIGHT = 10;
+    private        final Rectangle swatch;
+
+
+    // ******************** Constructors **************************************
+    public ColorTableCell() {
+        swatch = new Rectangle(SWATCH_WIDTH, SWATCH_HEIGHT);
+        getStyleClass().add("color-table-cell");
+        setContentDisplay(ContentDisplay.LEFT);
+    }
+
+
+    // ******************** Methods *******************************************
+    public static <S> Callback<TableColumn<S, Color>, TableCell<S, Color>> forTableColumn() { return column -> new ColorTableCell<>(); }
+
+    @Override public void startEdit() {
+        if (!isEditable() || !getTableView().isEditable() || !getTableColumn().isEditable()) { return; }
+        super.startEdit();
+        if (!isEditing()) { return; }
+        ColorPopupEditor.getInstance().edit(this, getItem(), this::commitEdit, this::cancelEdit);
+    }
+
+    @Override public void cancelEdit() {
+        super.cancelEdit();
+        ColorPopupEditor.release(this);
+    }
+
+    @Override public void commitEdit(final Color color) {
+        super.commitEdit(color);
+        ColorPopupEditor.release(this);
+    }
+
+    @Override protected void updateItem(final Color color, final boolean empty) {
+        super.updateItem(color, empty);
+        if (empty || null == color) {
+            setText(null);
+            setGraphic(null);
+        } else {
+            swatch.setFill(color);
+            setText(ColorFormat.toWeb(Helper.toARGB(color)));
+            setGraphic(swatch);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser;
+
+/**
+ * Defines how the ColorChooser delivers its ColorChooserEvents.
+ * IMMEDIATE: Every change of the fill or stroke is delivered right away.
+ * PULSE    : At most one FILL and one STROKE event per animation pulse will be
+ *            delivered, always with the latest color. When an interaction (e.g.
+ *            dragging a slider) ends, a FILL_COMMIT or STROKE_COMMIT event follows.
+ */
+public enum DispatchMode { IMMEDIATE, PULSE }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+
+/**
+ * Delivers events to one observer on the given executor in the order they
+ * came in. Each event has a coalesce key, events with a key of -1 (e.g.
+ * commits) are always delivered. If the observer is slower than the events
+ * come in, a pending event with the same key that was queued after the last
+ * always delivered event will be replaced by the newer one, so only the
+ * intermediate events in between will be dropped.
+ * The observer is never called concurrently and at most one task per lane
+ * is queued in the executor at any time.
+ */
+final class ObserverLane<E> {
+            static final int              NO_COALESCE = -1;
+    private        final Object           observer;
+    private        final Executor         executor;
+    private        final Consumer<E>      consumer;
+    private        final ToIntFunction<E> keyFunction;
+    private        final ArrayDeque<E>    queue;
+    private              boolean          scheduled;
+
+
+    // ******************** Constructors **************************************
+    ObserverLane(final Object observer, final Executor executor, final Consumer<E> consumer, final ToIntFunction<E> keyFunction) {
+        this.observer    = observer;
+        this.executor    = executor;
+        this.consumer    = consumer;
+        this.keyFunction = keyFunction;
+        this.queue       = new ArrayDeque<>();
+        this.scheduled   = false;
+    }
+
+
+    // ******************** Methods *******************************************
+    Object getObserver() { return observer; }
+
+    void offer(final E evt) {
+        int key = keyFunction.applyAsInt(evt);
+        synchronized (queue) {
+            if (NO_COALESCE != key) {
+                // Only look at the events after the last one that must be delivered
+                for (Iterator<E> i = queue.descendingIterator() ; i.hasNext() ; ) {
+                    int pendingKey = keyFunction.applyAsInt(i.next());
+                    if (NO_COALESCE == pendingKey) { break; }
+                    if (key == pendingKey) { i.remove(); break; }
+                }
+            }
+            queue.add(evt);
+            if (scheduled) { return; }
+            scheduled = true;
+        }
+        execute();
+    }
+
+    private void execute() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Executor was shut down, drop the pending events
+            synchronized (queue) {
+                queue.clear();
+                scheduled = false;
+            }
+        }
+    }
+
+    private void drain() {
+        boolean reschedule = false;
+        try {
+            int noOfEvents;
+            synchronized (queue) { noOfEvents = queue.size(); }
+            for (int i = 0 ; i < noOfEvents ; i++) {
+                E evt;
+                synchronized (queue) { evt = queue.poll(); }
+                if (null == evt) { break; }
+                consumer.accept(evt);
+            }
+        } finally {
+            synchronized (queue) {
+                reschedule = !queue.isEmpty();
+                scheduled  = reschedule;
+            }
+            if (reschedule) { execute(); }
+        }
+    }
+}
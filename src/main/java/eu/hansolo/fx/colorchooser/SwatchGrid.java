@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser;
+
+import eu.hansolo.fx.colorchooser.tool.ColorCache;
+import eu.hansolo.fx.colorchooser.tool.PaletteSource;
+import javafx.beans.DefaultProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.IntegerPropertyBase;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ObjectPropertyBase;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+
+/**
+ * Grid of color swatches for palettes of any size. Only the visible cells
+ * are drawn into one Canvas that has the size of the control, so the
+ * number of nodes and the memory don't depend on the size of the palette.
+ * The cell under the mouse is computed from the position instead of
+ * picking nodes. The colors are read from a PaletteSource, so a
+ * PaletteStore can be shown without loading it.
+ */
+@DefaultProperty("children")
+public class SwatchGrid extends Region {
+    private static final double                        PREFERRED_WIDTH  = 250;
+    private static final double                        PREFERRED_HEIGHT = 100;
+    private static final double                        MINIMUM_WIDTH    = 20;
+    private static final double                        MINIMUM_HEIGHT   = 20;
+    private static final double                        MAXIMUM_WIDTH    = 4096;
+    private static final double                        MAXIMUM_HEIGHT   = 4096;
+    private static final double                        DEFAULT_CELL     = 16;
+    private static final double                        DEFAULT_GAP      = 2;
+    private static final PaletteSource                 EMPTY            = PaletteSource.of();
+    private              double                        width;
+    private              double                        height;
+    private              Canvas                        canvas;
+    private              GraphicsContext               ctx;
+    private              ScrollBar                     scrollBar;
+    private              int[]                         rowBuffer;
+    private              double                        cellSize;
+    private              double                        gap;
+    private              Color                         selectionColor;
+    private              PaletteSource                 _palette;
+    private              ObjectProperty<PaletteSource> palette;
+    private              int                           _selectedIndex;
+    private              IntegerProperty               selectedIndex;
+
+
+    // ******************** Constructors **************************************
+    public SwatchGrid() {
+        this(EMPTY);
+    }
+    public SwatchGrid(final PaletteSource palette) {
+        _palette       = null == palette ? EMPTY : palette;
+        _selectedIndex = -1;
+        cellSize       = DEFAULT_CELL;
+        gap            = DEFAULT_GAP;
+        selectionColor = Color.web("#dbdbdb");
+        rowBuffer      = new int[0];
+
+        initGraphics();
+        registerListeners();
+    }
+
+
+    // ******************** Initialization ************************************
+    private void initGraphics() {
+        if (Double.compare(getPrefWidth(), 0.0) <= 0 || Double.compare(getPrefHeight(), 0.0) <= 0 || Double.compare(getWidth(), 0.0) <= 0 ||
+            Double.compare(getHeight(), 0.0) <= 0) {
+            if (getPrefWidth() > 0 && getPrefHeight() > 0) {
+                setPrefSize(getPrefWidth(), getPrefHeight());
+            } else {
+                setPrefSize(PREFERRED_WIDTH, PREFERRED_HEIGHT);
+            }
+        }
+
+        getStyleClass().add("swatch-grid");
+
+        canvas = new Canvas(PREFERRED_WIDTH, PREFERRED_HEIGHT);
+        ctx    = canvas.getGraphicsContext2D();
+
+        scrollBar = new ScrollBar();
+        scrollBar.setOrientation(Orientation.VERTICAL);
+        scrollBar.setMin(0);
+        scrollBar.setVisible(false);
+
+        getChildren().setAll(canvas, scrollBar);
+    }
+
+    private void registerListeners() {
+        widthProperty().addListener(o -> resize());
+        heightProperty().addListener(o -> resize());
+        scrollBar.valueProperty().addListener(o -> redraw());
+        canvas.setOnScroll(e -> scrollBar.setValue(clampScroll(scrollBar.getValue() - e.getDeltaY())));
+        canvas.setOnMousePressed(e -> {
+            // indexAt() expects coordinates of the control, the canvas is placed inside the insets
+            int index = indexAt(canvas.getLayoutX() + e.getX(), canvas.getLayoutY() + e.getY());
+            if (index >= 0) { setSelectedIndex(index); }
+        });
+    }
+
+
+    // ******************** Methods *******************************************
+    @Override protected double computeMinWidth(final double HEIGHT) { return MINIMUM_WIDTH; }
+    @Override protected double computeMinHeight(final double WIDTH) { return MINIMUM_HEIGHT; }
+    @Override protected double computePrefWidth(final double HEIGHT) { return super.computePrefWidth(HEIGHT); }
+    @Override protected double computePrefHeight(final double WIDTH) { return super.computePrefHeight(WIDTH); }
+    @Override protected double computeMaxWidth(final double HEIGHT) { return MAXIMUM_WIDTH; }
+    @Override protected double computeMaxHeight(final double WIDTH) { return MAXIMUM_HEIGHT; }
+
+    @Override public ObservableList<Node> getChildren() { return super.getChildren(); }
+
+    public PaletteSource getPalette() { return null == palette ? _palette : palette.get(); }
+    public void setPalette(final PaletteSource palette) {
+        if (null == this.palette) {
+            _palette = null == palette ? EMPTY : palette;
+            onPaletteChanged();
+        } else {
+            this.palette.set(null == palette ? EMPTY : palette);
+        }
+    }
+    public ObjectProperty<PaletteSource> paletteProperty() {
+        if (null == palette) {
+            palette = new ObjectPropertyBase<PaletteSource>(_palette) {
+                @Override protected void invalidated() { onPaletteChanged(); }
+                @Override public Object getBean() { return SwatchGrid.this; }
+                @Override public String getName() { return "palette"; }
+            };
+            _palette = null;
+        }
+        return palette;
+    }
+
+    /**
+     * @return The index of the selected swatch or -1 if no swatch is selected
+     */
+    public int getSelectedIndex() { return null == selectedIndex ? _selectedIndex : selectedIndex.get(); }
+    public void setSelectedIndex(final int selectedIndex) {
+        if (null == this.selectedIndex) {
+            _selectedIndex = selectedIndex;
+            redraw();
+        } else {
+            this.selectedIndex.set(selectedIndex);
+        }
+    }
+    public IntegerProperty selectedIndexProperty() {
+        if (null == selectedIndex) {
+            selectedIndex = new IntegerPropertyBase(_selectedIndex) {
+                @Override protected void invalidated() { redraw(); }
+                @Override public Object getBean() { return SwatchGrid.this; }
+                @Override public String getName() { return "selectedIndex"; }
+            };
+        }
+        return selectedIndex;
+    }
+
+    /**
+     * @return The color of the selected swatch or null if no swatch is selected
+     */
+    public Color getSelectedColor() {
+        int index = getSelectedIndex();
+        return index < 0 || index >= getPalette().size() ? null : ColorCache.get(getPalette().getArgb(index));
+    }
+
+    public double getCellSize() { return cellSize; }
+    public void setCellSize(final double cellSize) {
+        this.cellSize = Math.max(2, cellSize);
+        resize();
+    }
+
+    public double getGap() { return gap; }
+    public void setGap(final double gap) {
+        this.gap = Math.max(0, gap);
+        resize();
+    }
+
+    public Color getSelectionColor() { return selectionColor; }
+    public void setSelectionColor(final Color selectionColor) {
+        this.selectionColor = selectionColor;
+        redraw();
+    }
+
+    /**
+     * @return The height that is needed to show the given number of rows without scrolling
+     */
+    public double getHeightForRows(final int rows) { return rows <= 0 ? 0 : rows * (cellSize + gap) - gap + snappedTopInset() + snappedBottomInset(); }
+
+    /**
+     * @param x The x coordinate relative to this control
+     * @param y The y coordinate relative to this control
+     * @return The index of the swatch at the given position or -1 if there is none
+     */
+    public int indexAt(final double x, final double y) {
+        double pitch   = cellSize + gap;
+        double localX  = x - snappedLeftInset();
+        double localY  = y - snappedTopInset() + scrollBar.getValue();
+        if (localX < 0 || localY < 0 || localX >= canvas.getWidth()) { return -1; }
+        // Positions in the gap between two cells don't hit any swatch
+        if (localX % pitch >= cellSize || localY % pitch >= cellSize) { return -1; }
+        int column = (int) (localX / pitch);
+        int row    = (int) (localY / pitch);
+        if (column >= getNoOfColumns()) { return -1; }
+        long index = (long) row * getNoOfColumns() + column;
+        return index < getPalette().size() ? (int) index : -1;
+    }
+
+    /**
+     * Scrolls the grid so that the swatch with the given index is visible.
+     */
+    public void scrollTo(final int index) {
+        if (index < 0 || index >= getPalette().size()) { return; }
+        double pitch = cellSize + gap;
+        double top   = (index / getNoOfColumns()) * pitch;
+        double value = scrollBar.getValue();
+        if (top < value) {
+            scrollBar.setValue(clampScroll(top));
+        } else if (top + cellSize > value + canvas.getHeight()) {
+            scrollBar.setValue(clampScroll(top + cellSize - canvas.getHeight()));
+        }
+    }
+
+    private void onPaletteChanged() {
+        setSelectedIndex(-1);
+        scrollBar.setValue(0);
+        resize();
+    }
+
+    private int getNoOfColumns() { return Math.max(1, (int) ((canvas.getWidth() + gap) / (cellSize + gap))); }
+
+    private double getContentHeight() {
+        int noOfRows = (int) (((long) getPalette().size() + getNoOfColumns() - 1) / getNoOfColumns());
+        return noOfRows * (cellSize + gap) - gap;
+    }
+
+    private double clampScroll(final double value) { return Math.max(0, Math.min(scrollBar.getMax(), value)); }
+
+
+    // ******************** Resizing ******************************************
+    private void resize() {
+        width  = getWidth() - snappedLeftInset() - snappedRightInset();
+        height = getHeight() - snappedTopInset() - snappedBottomInset();
+        if (width <= 0 || height <= 0) { return; }
+
+        // The scroll bar only takes space if the swatches don't fit
+        double scrollBarWidth = scrollBar.prefWidth(-1);
+        canvas.setWidth(width);
+        boolean scrollable = getContentHeight() > height;
+        if (scrollable) { canvas.setWidth(Math.max(1, width - scrollBarWidth)); }
+        canvas.setHeight(height);
+        canvas.relocate(snappedLeftInset(), snappedTopInset());
+
+        scrollBar.setVisible(scrollable);
+        scrollBar.resizeRelocate(snappedLeftInset() + width - scrollBarWidth, snappedTopInset(), scrollBarWidth, height);
+        scrollBar.setMax(Math.max(0, getContentHeight() - height));
+        scrollBar.setVisibleAmount(height);
+        scrollBar.setUnitIncrement(cellSize + gap);
+        scrollBar.setBlockIncrement(height);
+        scrollBar.setValue(clampScroll(scrollBar.getValue()));
+
+        int noOfColumns = getNoOfColumns();
+        if (rowBuffer.length != noOfColumns) { rowBuffer = new int[noOfColumns]; }
+
+        redraw();
+    }
+
+    private void redraw() {
+        if (null == canvas) { return; }
+        double        canvasWidth   = canvas.getWidth();
+        double        canvasHeight  = canvas.getHeight();
+        PaletteSource source        = getPalette();
+        int           noOfColumns   = getNoOfColumns();
+        int           size          = source.size();
+        int           selected      = getSelectedIndex();
+        double        pitch         = cellSize + gap;
+        double        offset        = scrollBar.getValue();
+        int           firstRow      = (int) (offset / pitch);
+        int           lastRow       = (int) ((offset + canvasHeight) / pitch);
+        if (rowBuffer.length != noOfColumns) { rowBuffer = new int[noOfColumns]; }
+
+        ctx.clearRect(0, 0, canvasWidth, canvasHeight);
+        for (int row = firstRow ; row <= lastRow ; row++) {
+            long first = (long) row * noOfColumns;
+            if (first >= size) { break; }
+            int    count = (int) Math.min(noOfColumns, size - first);
+            double y     = row * pitch - offset;
+            source.getArgbs((int) first, rowBuffer, 0, count);
+            for (int column = 0 ; column < count ; column++) {
+                ctx.setFill(ColorCache.get(rowBuffer[column]));
+                ctx.fillRect(column * pitch, y, cellSize, cellSize);
+            }
+        }
+
+        if (selected >= 0 && selected < size) {
+            int row = selected / noOfColumns;
+            if (row >= firstRow && row <= lastRow) {
+                ctx.setStroke(selectionColor);
+                ctx.setLineWidth(2);
+                ctx.strokeRect((selected % noOfColumns) * pitch + 1, row * pitch - offset + 1, cellSize - 2, cellSize - 2);
+            }
+        }
+    }
+}
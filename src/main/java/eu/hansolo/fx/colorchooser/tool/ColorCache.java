@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import javafx.scene.paint.Color;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Process wide interning cache for Color instances keyed by their packed
+ * ARGB value. Colors that are created on every slider tick will be taken
+ * from the cache if they have been used before. The cache is an open
+ * addressing table where a key can only live in PROBE_LENGTH slots after
+ * its hash slot. If all of these slots are taken, one of them will be
+ * replaced using the clock (second chance) algorithm.
+ * The keys are kept in a long array where each slot holds the ARGB value in
+ * the lower and a version in the upper 32 bits. Inserts are synchronized and
+ * increment the version before and after the color is replaced, so lookups
+ * are lock free and only return a color if the version of its slot didn't
+ * change while it was read.
+ */
+public class ColorCache {
+    public  static final int                    DEFAULT_CAPACITY = 4096;
+    public  static final int                    MIN_CAPACITY     = 16;
+    public  static final int                    MAX_CAPACITY     = 1 << 20;
+    private static final int                    PROBE_LENGTH     = 8;
+    private static final long                   EMPTY            = 0;
+    private static final AtomicReference<Table> TABLE            = new AtomicReference<>(new Table(DEFAULT_CAPACITY));
+    private static final LongAdder              HITS             = new LongAdder();
+    private static final LongAdder              MISSES           = new LongAdder();
+    private static final LongAdder              EVICTIONS        = new LongAdder();
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the Color for the given packed ARGB value. The color will be
+     * created and cached if it is not in the cache yet.
+     * @param argb The color as packed ARGB int (see PackedColor)
+     * @return The Color for the given ARGB value
+     */
+    public static final Color get(final int argb) {
+        final Table current = TABLE.get();
+        final int   start   = current.indexOf(argb);
+        for (int i = 0 ; i < PROBE_LENGTH ; i++) {
+            int  index = (start + i) & current.mask;
+            long slot  = current.slots.get(index);
+            if (EMPTY == slot) { break; }
+            if ((int) slot == argb && isStable(slot)) {
+                Color color = current.colors.get(index);
+                if (current.slots.get(index) == slot) {
+                    if (!current.referenced[index]) { current.referenced[index] = true; }
+                    HITS.increment();
+                    return color;
+                }
+            }
+        }
+        MISSES.increment();
+        return current.insert(argb, start);
+    }
+    public static final Color get(final int red, final int green, final int blue, final double opacity) {
+        return get(PackedColor.argb(PackedColor.toByte(opacity), red, green, blue));
+    }
+
+    public static final int getCapacity() { return TABLE.get().slots.length(); }
+    /**
+     * Replaces the cache with an empty one of the given capacity. The capacity
+     * will be rounded up to the next power of two.
+     * @param capacity The max number of colors in the cache
+     */
+    public static final void setCapacity(final int capacity) {
+        if (capacity < MIN_CAPACITY || capacity > MAX_CAPACITY) { throw new IllegalArgumentException("capacity must be between " + MIN_CAPACITY + " and " + MAX_CAPACITY); }
+        TABLE.set(new Table(capacity));
+    }
+
+    public static final int size() {
+        final Table current = TABLE.get();
+        int size = 0;
+        for (int i = 0 ; i < current.slots.length() ; i++) { if (EMPTY != current.slots.get(i)) { size++; } }
+        return size;
+    }
+
+    public static final long getHits() { return HITS.sum(); }
+    public static final long getMisses() { return MISSES.sum(); }
+    public static final long getEvictions() { return EVICTIONS.sum(); }
+    public static final double getHitRatio() {
+        long hits     = HITS.sum();
+        long requests = hits + MISSES.sum();
+        return 0 == requests ? 0 : (double) hits / requests;
+    }
+
+    public static final void clear() {
+        TABLE.set(new Table(getCapacity()));
+        HITS.reset();
+        MISSES.reset();
+        EVICTIONS.reset();
+    }
+
+    // An odd version means the color of the slot is replaced right now
+    private static boolean isStable(final long slot) { return 0 == ((slot >>> 32) & 1); }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class Table {
+        private final AtomicLongArray             slots;
+        private final AtomicReferenceArray<Color> colors;
+        private final boolean[]                   referenced;
+        private final int                         mask;
+
+
+        // ******************** Constructors **********************************
+        Table(final int capacity) {
+            int size = MIN_CAPACITY;
+            while (size < capacity) { size <<= 1; }
+            slots      = new AtomicLongArray(size);
+            colors     = new AtomicReferenceArray<>(size);
+            referenced = new boolean[size];
+            mask       = size - 1;
+        }
+
+
+        // ******************** Methods ***************************************
+        int indexOf(final int argb) {
+            int hash = argb * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        synchronized Color insert(final int argb, final int start) {
+            // Take the first free slot, otherwise give referenced colors a second chance
+            int index  = -1;
+            int victim = -1;
+            for (int i = 0 ; i < PROBE_LENGTH ; i++) {
+                int  current = (start + i) & mask;
+                long slot    = slots.get(current);
+                if (EMPTY == slot) {
+                    index = current;
+                    break;
+                }
+                // Another thread might have inserted the color in the meantime
+                if ((int) slot == argb) { return colors.get(current); }
+                if (victim < 0) {
+                    if (referenced[current]) {
+                        referenced[current] = false;
+                    } else {
+                        victim = current;
+                    }
+                }
+            }
+            if (index < 0) {
+                // All colors have been referenced, their bits are cleared now so the first one is replaced
+                index = victim < 0 ? start : victim;
+                EVICTIONS.increment();
+            }
+            Color color   = Color.rgb(PackedColor.red(argb), PackedColor.green(argb), PackedColor.blue(argb), PackedColor.opacity(argb));
+            long  slot    = slots.get(index);
+            int   version = (int) (slot >>> 32);
+            slots.set(index, ((long) (version + 1) << 32) | (slot & 0xFFFFFFFFL));
+            colors.set(index, color);
+            referenced[index] = false;
+            // Skip version 0 on overflow, otherwise transparent black would look like an empty slot
+            int next = 0 == version + 2 ? 2 : version + 2;
+            slots.set(index, ((long) next << 32) | (argb & 0xFFFFFFFFL));
+            return color;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+
+/**
+ * Perceptual color differences (see DeltaE) of packed ARGB colors (see
+ * PackedColor), the opacity will be ignored. The Lab and OKLab values of
+ * the last used colors are kept in small direct mapped caches that can be
+ * used from any thread, so comparing the same colors again doesn't convert
+ * them again. To compare one color with many colors use LabPalette, which
+ * converts the palette only once.
+ */
+public class ColorDifference {
+    /**
+     * The max value of the lightness weight S_L of CIEDE2000 (for L = 0 or 100).
+     * The lightness difference divided by it is a lower bound of CIEDE2000.
+     */
+    public  static final double  SL_MAX      = 1.0 + 0.015 * 2500 / Math.sqrt(20 + 2500);
+    private static final int     CACHE_SIZE  = 4096;
+    private static final int     CACHE_MASK  = CACHE_SIZE - 1;
+    private static final double  POW_25_7    = Math.pow(25, 7);
+    private static final Entry[] LAB_CACHE   = new Entry[CACHE_SIZE];
+    private static final Entry[] OKLAB_CACHE = new Entry[CACHE_SIZE];
+
+
+    // ******************** Methods *******************************************
+    public static final double deltaE(final int argb1, final int argb2, final DeltaE metric) {
+        switch(metric) {
+            case CIE76    : return cie76(argb1, argb2);
+            case CIE94    : return cie94(argb1, argb2);
+            case CIEDE2000: return ciede2000(argb1, argb2);
+            default       : return oklab(argb1, argb2);
+        }
+    }
+
+    public static final double cie76(final int argb1, final int argb2) {
+        Entry e1 = lab(argb1);
+        Entry e2 = lab(argb2);
+        return cie76(e1.l, e1.a, e1.b, e2.l, e2.a, e2.b);
+    }
+    public static final double cie76(final double l1, final double a1, final double b1, final double l2, final double a2, final double b2) {
+        double dL = l1 - l2;
+        double da = a1 - a2;
+        double db = b1 - b2;
+        return Math.sqrt(dL * dL + da * da + db * db);
+    }
+
+    /**
+     * @param argb1 The reference color
+     * @param argb2 The sample color
+     * @return The CIE94 difference with the weights for graphic arts
+     */
+    public static final double cie94(final int argb1, final int argb2) {
+        Entry e1 = lab(argb1);
+        Entry e2 = lab(argb2);
+        return cie94(e1.l, e1.a, e1.b, e1.c, e2.l, e2.a, e2.b, e2.c);
+    }
+    public static final double cie94(final double l1, final double a1, final double b1, final double l2, final double a2, final double b2) {
+        return cie94(l1, a1, b1, Math.sqrt(a1 * a1 + b1 * b1), l2, a2, b2, Math.sqrt(a2 * a2 + b2 * b2));
+    }
+    static final double cie94(final double l1, final double a1, final double b1, final double c1, final double l2, final double a2, final double b2, final double c2) {
+        double dL  = l1 - l2;
+        double dC  = c1 - c2;
+        double da  = a1 - a2;
+        double db  = b1 - b2;
+        double dH2 = Math.max(0, da * da + db * db - dC * dC);
+        double sC  = 1.0 + 0.045 * c1;
+        double sH  = 1.0 + 0.015 * c1;
+        return Math.sqrt(dL * dL + (dC / sC) * (dC / sC) + dH2 / (sH * sH));
+    }
+
+    public static final double ciede2000(final int argb1, final int argb2) {
+        Entry e1 = lab(argb1);
+        Entry e2 = lab(argb2);
+        return ciede2000(e1.l, e1.a, e1.b, e1.c, e2.l, e2.a, e2.b, e2.c);
+    }
+    public static final double ciede2000(final double l1, final double a1, final double b1, final double l2, final double a2, final double b2) {
+        return ciede2000(l1, a1, b1, Math.sqrt(a1 * a1 + b1 * b1), l2, a2, b2, Math.sqrt(a2 * a2 + b2 * b2));
+    }
+    static final double ciede2000(final double l1, final double a1, final double b1, final double c1, final double l2, final double a2, final double b2, final double c2) {
+        double cBar7 = pow7((c1 + c2) * 0.5);
+        double g     = 0.5 * (1.0 - Math.sqrt(cBar7 / (cBar7 + POW_25_7)));
+        double a1p   = (1.0 + g) * a1;
+        double a2p   = (1.0 + g) * a2;
+        double c1p   = Math.sqrt(a1p * a1p + b1 * b1);
+        double c2p   = Math.sqrt(a2p * a2p + b2 * b2);
+        double h1p   = hueAngle(b1, a1p);
+        double h2p   = hueAngle(b2, a2p);
+
+        boolean gray = c1p * c2p == 0;
+
+        double dLp = l2 - l1;
+        double dCp = c2p - c1p;
+        double dhp = gray ? 0 : h2p - h1p;
+        if (dhp > 180) {
+            dhp -= 360;
+        } else if (dhp < -180) {
+            dhp += 360;
+        }
+        double dHp = 2.0 * Math.sqrt(c1p * c2p) * Math.sin(Math.toRadians(dhp * 0.5));
+
+        double lBarP = (l1 + l2) * 0.5;
+        double cBarP = (c1p + c2p) * 0.5;
+        double hBarP;
+        if (gray) {
+            hBarP = h1p + h2p;
+        } else if (Math.abs(h1p - h2p) <= 180) {
+            hBarP = (h1p + h2p) * 0.5;
+        } else {
+            hBarP = (h1p + h2p < 360 ? h1p + h2p + 360 : h1p + h2p - 360) * 0.5;
+        }
+
+        double t      = 1.0 - 0.17 * Math.cos(Math.toRadians(hBarP - 30)) + 0.24 * Math.cos(Math.toRadians(2 * hBarP)) +
+                        0.32 * Math.cos(Math.toRadians(3 * hBarP + 6)) - 0.20 * Math.cos(Math.toRadians(4 * hBarP - 63));
+        double dTheta = 30.0 * Math.exp(-((hBarP - 275) / 25) * ((hBarP - 275) / 25));
+        double cBarP7 = pow7(cBarP);
+        double rC     = 2.0 * Math.sqrt(cBarP7 / (cBarP7 + POW_25_7));
+        double l50    = (lBarP - 50) * (lBarP - 50);
+        double sL     = 1.0 + 0.015 * l50 / Math.sqrt(20 + l50);
+        double sC     = 1.0 + 0.045 * cBarP;
+        double sH     = 1.0 + 0.015 * cBarP * t;
+        double rT     = -Math.sin(Math.toRadians(2 * dTheta)) * rC;
+        double lTerm  = dLp / sL;
+        double cTerm  = dCp / sC;
+        double hTerm  = dHp / sH;
+        return Math.sqrt(lTerm * lTerm + cTerm * cTerm + hTerm * hTerm + rT * cTerm * hTerm);
+    }
+
+    public static final double oklab(final int argb1, final int argb2) {
+        Entry e1 = oklab(argb1);
+        Entry e2 = oklab(argb2);
+        return cie76(e1.l, e1.a, e1.b, e2.l, e2.a, e2.b);
+    }
+
+    /**
+     * Writes the cached CIE L*a*b* values of the given color into the given array.
+     */
+    public static final void toLab(final int argb, final double[] lab) {
+        Entry entry = lab(argb);
+        lab[0] = entry.l;
+        lab[1] = entry.a;
+        lab[2] = entry.b;
+    }
+
+    /**
+     * Writes the cached OKLab values of the given color into the given array.
+     */
+    public static final void toOklab(final int argb, final double[] lab) {
+        Entry entry = oklab(argb);
+        lab[0] = entry.l;
+        lab[1] = entry.a;
+        lab[2] = entry.b;
+    }
+
+    private static final Entry lab(final int argb) {
+        int   rgb   = argb & 0x00FFFFFF;
+        int   slot  = hash(rgb);
+        Entry entry = LAB_CACHE[slot];
+        if (null == entry || entry.rgb != rgb) {
+            double[] lab = new double[3];
+            PackedColor.rgbToLab(rgb, lab);
+            entry           = new Entry(rgb, lab);
+            LAB_CACHE[slot] = entry;
+        }
+        return entry;
+    }
+
+    private static final Entry oklab(final int argb) {
+        int   rgb   = argb & 0x00FFFFFF;
+        int   slot  = hash(rgb);
+        Entry entry = OKLAB_CACHE[slot];
+        if (null == entry || entry.rgb != rgb) {
+            double[] lab = new double[3];
+            PackedColor.rgbToOklab(rgb, lab);
+            entry             = new Entry(rgb, lab);
+            OKLAB_CACHE[slot] = entry;
+        }
+        return entry;
+    }
+
+    private static final int hash(final int rgb) {
+        int h = rgb * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & CACHE_MASK;
+    }
+
+    private static final double hueAngle(final double b, final double a) {
+        if (0 == a && 0 == b) { return 0; }
+        double angle = Math.toDegrees(Math.atan2(b, a));
+        return angle < 0 ? angle + 360 : angle;
+    }
+
+    private static final double pow7(final double value) {
+        double v3 = value * value * value;
+        return v3 * v3 * value;
+    }
+
+
+    // ******************** Inner Classes *************************************
+    // Immutable, so entries can be replaced by other threads without locking
+    private static final class Entry {
+        private final int    rgb;
+        private final double l;
+        private final double a;
+        private final double b;
+        private final double c;
+
+        Entry(final int rgb, final double[] lab) {
+            this.rgb = rgb;
+            this.l   = lab[0];
+            this.a   = lab[1];
+            this.b   = lab[2];
+            this.c   = Math.sqrt(lab[1] * lab[1] + lab[2] * lab[2]);
+        }
+    }
+}
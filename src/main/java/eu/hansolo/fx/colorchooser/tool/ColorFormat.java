@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+
+/**
+ * Formats packed ARGB colors (see PackedColor) as text without using
+ * String.format() or regular expressions. The text of every channel value
+ * is taken from precomputed tables and the color strings are written into
+ * a char buffer per thread, so the only allocation is the resulting String.
+ * Single channel values and percentages are returned from the tables and
+ * don't allocate at all.
+ */
+public class ColorFormat {
+    public  static final int                   MAX_DECIMAL = 360;
+    private static final char[]                HEX_DIGITS  = "0123456789abcdef".toCharArray();
+    private static final String[]              HEX_UPPER   = new String[256];
+    private static final String[]              DECIMAL     = new String[MAX_DECIMAL + 1];
+    private static final String[]              PERCENT     = new String[101];
+    private static final ThreadLocal<char[]>   BUFFER      = ThreadLocal.withInitial(() -> new char[32]);
+    private static final ThreadLocal<double[]> HSL         = ThreadLocal.withInitial(() -> new double[3]);
+
+    static {
+        for (int i = 0 ; i < 256 ; i++) { HEX_UPPER[i] = new String(new char[] { HEX_DIGITS[i >> 4], HEX_DIGITS[i & 0xF] }).toUpperCase(); }
+        for (int i = 0 ; i <= MAX_DECIMAL ; i++) { DECIMAL[i] = Integer.toString(i); }
+        for (int i = 0 ; i <= 100 ; i++) { PERCENT[i] = DECIMAL[i] + "%"; }
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * @param value A value in the range of 0 - 255
+     * @return The value as 2 digit upper case hex string (e.g. "0A")
+     */
+    public static final String toHex(final int value) { return HEX_UPPER[value & 0xFF]; }
+
+    /**
+     * @param value A value in the range of 0 - MAX_DECIMAL, other values will be converted with Integer.toString()
+     * @return The value as decimal string
+     */
+    public static final String toDecimal(final int value) { return value >= 0 && value <= MAX_DECIMAL ? DECIMAL[value] : Integer.toString(value); }
+
+    /**
+     * @param fraction A value in the range of 0 - 1
+     * @return The fraction as percentage without decimals (e.g. "80%")
+     */
+    public static final String toPercent(final double fraction) { return PERCENT[(int) Math.round(Helper.clamp(0.0, 1.0, fraction) * 100)]; }
+
+    /**
+     * @return The color as "#rrggbb"
+     */
+    public static final String toWeb(final int argb) {
+        char[] buffer = BUFFER.get();
+        buffer[0] = '#';
+        int length = putHex(buffer, putHex(buffer, putHex(buffer, 1, PackedColor.red(argb)), PackedColor.green(argb)), PackedColor.blue(argb));
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * @return The color as "#rrggbbaa"
+     */
+    public static final String toHex8(final int argb) {
+        char[] buffer = BUFFER.get();
+        buffer[0] = '#';
+        int length = putHex(buffer, putHex(buffer, putHex(buffer, putHex(buffer, 1, PackedColor.red(argb)), PackedColor.green(argb)), PackedColor.blue(argb)), PackedColor.alpha(argb));
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * @return The color as "rgb(r, g, b)"
+     */
+    public static final String toRgb(final int argb) {
+        char[] buffer = BUFFER.get();
+        int    index  = putText(buffer, 0, "rgb(");
+        index = putRgb(buffer, index, argb);
+        buffer[index++] = ')';
+        return new String(buffer, 0, index);
+    }
+
+    /**
+     * @return The color as "rgba(r, g, b,a)" with 3 decimals for the alpha value
+     */
+    public static final String toRgba(final int argb) { return toRgba(argb, PackedColor.opacity(argb)); }
+    public static final String toRgba(final int argb, final double opacity) {
+        char[] buffer = BUFFER.get();
+        int    index  = putText(buffer, 0, "rgba(");
+        index = putRgb(buffer, index, argb);
+        buffer[index++] = ',';
+        index = putFraction(buffer, index, opacity);
+        buffer[index++] = ')';
+        return new String(buffer, 0, index);
+    }
+
+    /**
+     * @return The color as "hsl(h, s%, l%)" with whole degrees and percent
+     */
+    public static final String toHsl(final int argb) {
+        double[] hsl    = HSL.get();
+        char[]   buffer = BUFFER.get();
+        PackedColor.rgbToHsl(argb, hsl);
+        int index = putText(buffer, 0, "hsl(");
+        index = putText(buffer, index, DECIMAL[(int) Math.round(hsl[0]) % 360]);
+        index = putText(buffer, index, ", ");
+        index = putText(buffer, index, PERCENT[(int) Math.round(hsl[1] * 100)]);
+        index = putText(buffer, index, ", ");
+        index = putText(buffer, index, PERCENT[(int) Math.round(hsl[2] * 100)]);
+        buffer[index++] = ')';
+        return new String(buffer, 0, index);
+    }
+
+    private static final int putHex(final char[] buffer, final int index, final int value) {
+        buffer[index]     = HEX_DIGITS[value >> 4];
+        buffer[index + 1] = HEX_DIGITS[value & 0xF];
+        return index + 2;
+    }
+
+    private static final int putText(final char[] buffer, final int index, final String text) {
+        text.getChars(0, text.length(), buffer, index);
+        return index + text.length();
+    }
+
+    private static final int putRgb(final char[] buffer, final int index, final int argb) {
+        int i = putText(buffer, index, DECIMAL[PackedColor.red(argb)]);
+        i = putText(buffer, i, ", ");
+        i = putText(buffer, i, DECIMAL[PackedColor.green(argb)]);
+        i = putText(buffer, i, ", ");
+        return putText(buffer, i, DECIMAL[PackedColor.blue(argb)]);
+    }
+
+    // Writes the given fraction (0 - 1) with 3 decimals
+    private static final int putFraction(final char[] buffer, final int index, final double fraction) {
+        int thousandths = (int) Math.round(Helper.clamp(0.0, 1.0, fraction) * 1000);
+        buffer[index]     = (char) ('0' + thousandths / 1000);
+        buffer[index + 1] = '.';
+        buffer[index + 2] = (char) ('0' + thousandths / 100 % 10);
+        buffer[index + 3] = (char) ('0' + thousandths / 10 % 10);
+        buffer[index + 4] = (char) ('0' + thousandths % 10);
+        return index + 5;
+    }
+}
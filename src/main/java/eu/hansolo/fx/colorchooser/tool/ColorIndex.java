@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+
+/**
+ * Immutable k-d tree over the colors of a palette (packed ARGB ints, see
+ * PackedColor) to find the closest palette colors in O(log n) instead of
+ * comparing every palette color. The tree is stored in flat arrays in the
+ * given ColorSpace (OKLab by default, where the euclidean distance matches
+ * the perceived difference), the opacity will be ignored.
+ * All queries return indices into the palette that was given to the
+ * constructor. Once created an index can be queried from any number of
+ * threads at the same time. Batch queries with at least PARALLEL_THRESHOLD
+ * colors will be split into chunks that run on the common fork join pool.
+ */
+public class ColorIndex {
+    public  static final int        PARALLEL_THRESHOLD = 1 << 12;
+    private static final int        CHUNK_SIZE         = 1 << 10;
+    private        final int[]      palette;
+    private        final ColorSpace colorSpace;
+    private        final double[]   coordinates;
+    private        final int[]      indices;
+    private        final byte[]     axes;
+
+
+    // ******************** Constructors **************************************
+    public ColorIndex(final int[] palette) { this(palette, ColorSpace.OKLAB); }
+    /**
+     * @param palette    The palette colors as packed ARGB ints, the array will be copied
+     * @param colorSpace The color space the distances will be measured in
+     */
+    public ColorIndex(final int[] palette, final ColorSpace colorSpace) {
+        this.palette    = palette.clone();
+        this.colorSpace = colorSpace;
+        int size = palette.length;
+        coordinates = new double[size * 3];
+        indices     = new int[size];
+        axes        = new byte[size];
+
+        double[] components = new double[3];
+        for (int i = 0 ; i < size ; i++) {
+            PackedColor.toColorSpace(palette[i], colorSpace, components);
+            System.arraycopy(components, 0, coordinates, i * 3, 3);
+            indices[i] = i;
+        }
+        build(0, size);
+    }
+
+
+    // ******************** Methods *******************************************
+    public int size() { return palette.length; }
+
+    public ColorSpace getColorSpace() { return colorSpace; }
+
+    public int getColor(final int index) { return palette[index]; }
+
+    public int[] getPalette() { return palette.clone(); }
+
+    /**
+     * @param argb The color to look for
+     * @return The index of the closest palette color or -1 if the palette is empty
+     */
+    public int nearest(final int argb) {
+        if (0 == palette.length) { return -1; }
+        Query query = new Query(argb, colorSpace);
+        query.bestDistance = Double.POSITIVE_INFINITY;
+        nearest(0, palette.length, query);
+        return query.bestIndex;
+    }
+
+    /**
+     * @param argb The color to look for
+     * @return The closest palette color as packed ARGB int or the given color if the palette is empty
+     */
+    public int nearestColor(final int argb) {
+        int index = nearest(argb);
+        return index < 0 ? argb : palette[index];
+    }
+
+    /**
+     * Looks up the closest palette color for all given colors.
+     * @param argbs   The colors to look for
+     * @param indices The array the palette indices will be written to, must be at least as long as argbs
+     */
+    public void nearest(final int[] argbs, final int[] indices) {
+        if (indices.length < argbs.length) { throw new IllegalArgumentException("indices must be at least as long as argbs"); }
+        forEachChunk(argbs.length, (from, to) -> {
+            for (int i = from ; i < to ; i++) { indices[i] = nearest(argbs[i]); }
+        });
+    }
+
+    /**
+     * Replaces all given colors by their closest palette color (e.g. the
+     * pixels of an image), colors stay unchanged if the palette is empty.
+     * @param argbs The colors that will be replaced
+     */
+    public void snap(final int[] argbs) {
+        forEachChunk(argbs.length, (from, to) -> {
+            for (int i = from ; i < to ; i++) { argbs[i] = nearestColor(argbs[i]); }
+        });
+    }
+
+    /**
+     * @param argb The color to look for
+     * @param k    The max number of palette colors
+     * @return The indices of the k closest palette colors, the closest first
+     */
+    public int[] kNearest(final int argb, final int k) {
+        if (k < 0) { throw new IllegalArgumentException("k must not be negative"); }
+        int   count = Math.min(k, palette.length);
+        Query query = new Query(argb, colorSpace);
+        query.heapDistances = new double[count];
+        query.heapIndices   = new int[count];
+        query.bestDistance  = count > 0 ? Double.POSITIVE_INFINITY : -1;
+        if (count > 0) { kNearest(0, palette.length, query); }
+
+        // Sort the max heap in place, the largest distance ends up last
+        for (int last = count - 1 ; last > 0 ; last--) {
+            swap(query.heapDistances, query.heapIndices, 0, last);
+            siftDown(query.heapDistances, query.heapIndices, 0, last);
+        }
+        return query.heapIndices;
+    }
+
+    /**
+     * @param argb   The color to look for
+     * @param radius The max distance in the color space of this index
+     * @return The indices of all palette colors within the radius, the closest first
+     */
+    public int[] withinRadius(final int argb, final double radius) {
+        Query query = new Query(argb, colorSpace);
+        query.bestDistance  = radius * radius;
+        query.heapDistances = new double[16];
+        query.heapIndices   = new int[16];
+        if (radius >= 0) { withinRadius(0, palette.length, query); }
+
+        // Sort by distance with the index as tie breaker, the squared distances are positive so their bits sort like longs
+        long[] sorted = new long[query.count];
+        for (int i = 0 ; i < query.count ; i++) { sorted[i] = (long) Float.floatToIntBits((float) query.heapDistances[i]) << 32 | query.heapIndices[i]; }
+        Arrays.sort(sorted);
+        int[] result = new int[query.count];
+        for (int i = 0 ; i < result.length ; i++) { result[i] = (int) sorted[i]; }
+        return result;
+    }
+
+    /**
+     * @return The distance between the given color and the palette color at the given index in the color space of this index
+     */
+    public double distance(final int argb, final int index) {
+        double[] from = new double[3];
+        double[] to   = new double[3];
+        PackedColor.toColorSpace(argb, colorSpace, from);
+        PackedColor.toColorSpace(palette[index], colorSpace, to);
+        return Math.sqrt((from[0] - to[0]) * (from[0] - to[0]) + (from[1] - to[1]) * (from[1] - to[1]) + (from[2] - to[2]) * (from[2] - to[2]));
+    }
+
+    // Creates the subtree of the range [from, to), the median is stored in the middle of the range
+    private void build(final int from, final int to) {
+        if (to - from < 1) { return; }
+        int axis   = widestAxis(from, to);
+        int median = (from + to) >>> 1;
+        select(from, to - 1, median, axis);
+        axes[median] = (byte) axis;
+        build(from, median);
+        build(median + 1, to);
+    }
+
+    private int widestAxis(final int from, final int to) {
+        int    axis   = 0;
+        double spread = -1;
+        for (int a = 0 ; a < 3 ; a++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from ; i < to ; i++) {
+                double value = coordinates[i * 3 + a];
+                if (value < min) { min = value; }
+                if (value > max) { max = value; }
+            }
+            if (max - min > spread) {
+                spread = max - min;
+                axis   = a;
+            }
+        }
+        return axis;
+    }
+
+    // Quickselect, afterwards the node at k is on its sorted position regarding the given axis
+    private void select(int left, int right, final int k, final int axis) {
+        while (right > left) {
+            double pivot = coordinates[((left + right) >>> 1) * 3 + axis];
+            int    i     = left;
+            int    j     = right;
+            while (i <= j) {
+                while (coordinates[i * 3 + axis] < pivot) { i++; }
+                while (coordinates[j * 3 + axis] > pivot) { j--; }
+                if (i <= j) { swapNodes(i++, j--); }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swapNodes(final int i, final int j) {
+        for (int a = 0 ; a < 3 ; a++) {
+            double tmp = coordinates[i * 3 + a];
+            coordinates[i * 3 + a] = coordinates[j * 3 + a];
+            coordinates[j * 3 + a] = tmp;
+        }
+        int tmp = indices[i];
+        indices[i] = indices[j];
+        indices[j] = tmp;
+    }
+
+    private double squaredDistance(final double[] components, final int offset) {
+        double d0 = components[0] - coordinates[offset];
+        double d1 = components[1] - coordinates[offset + 1];
+        double d2 = components[2] - coordinates[offset + 2];
+        return d0 * d0 + d1 * d1 + d2 * d2;
+    }
+
+    private void nearest(final int from, final int to, final Query query) {
+        if (to - from < 1) { return; }
+        int    node     = (from + to) >>> 1;
+        double distance = squaredDistance(query.components, node * 3);
+        if (distance < query.bestDistance || (distance == query.bestDistance && indices[node] < query.bestIndex)) {
+            query.bestDistance = distance;
+            query.bestIndex    = indices[node];
+        }
+        int    axis  = axes[node];
+        double delta = query.components[axis] - coordinates[node * 3 + axis];
+        if (delta < 0) {
+            nearest(from, node, query);
+            if (delta * delta <= query.bestDistance) { nearest(node + 1, to, query); }
+        } else {
+            nearest(node + 1, to, query);
+            if (delta * delta <= query.bestDistance) { nearest(from, node, query); }
+        }
+    }
+
+    // Keeps the k closest nodes in a max heap, bestDistance is the largest distance in the full heap
+    private void kNearest(final int from, final int to, final Query query) {
+        if (to - from < 1) { return; }
+        int    node     = (from + to) >>> 1;
+        double distance = squaredDistance(query.components, node * 3);
+        int    capacity = query.heapIndices.length;
+        if (query.count < capacity) {
+            int i = query.count++;
+            query.heapDistances[i] = distance;
+            query.heapIndices[i]   = indices[node];
+            siftUp(query.heapDistances, query.heapIndices, i);
+            if (query.count == capacity) { query.bestDistance = query.heapDistances[0]; }
+        } else if (distance < query.heapDistances[0]) {
+            query.heapDistances[0] = distance;
+            query.heapIndices[0]   = indices[node];
+            siftDown(query.heapDistances, query.heapIndices, 0, capacity);
+            query.bestDistance = query.heapDistances[0];
+        }
+        int    axis  = axes[node];
+        double delta = query.components[axis] - coordinates[node * 3 + axis];
+        if (delta < 0) {
+            kNearest(from, node, query);
+            if (delta * delta < query.bestDistance) { kNearest(node + 1, to, query); }
+        } else {
+            kNearest(node + 1, to, query);
+            if (delta * delta < query.bestDistance) { kNearest(from, node, query); }
+        }
+    }
+
+    private void withinRadius(final int from, final int to, final Query query) {
+        if (to - from < 1) { return; }
+        int    node     = (from + to) >>> 1;
+        double distance = squaredDistance(query.components, node * 3);
+        if (distance <= query.bestDistance) {
+            if (query.count == query.heapIndices.length) {
+                query.heapDistances = Arrays.copyOf(query.heapDistances, query.count * 2);
+                query.heapIndices   = Arrays.copyOf(query.heapIndices, query.count * 2);
+            }
+            query.heapDistances[query.count] = distance;
+            query.heapIndices[query.count++] = indices[node];
+        }
+        int    axis  = axes[node];
+        double delta = query.components[axis] - coordinates[node * 3 + axis];
+        if (delta <= 0 || delta * delta <= query.bestDistance) { withinRadius(from, node, query); }
+        if (delta >= 0 || delta * delta <= query.bestDistance) { withinRadius(node + 1, to, query); }
+    }
+
+    private static void siftUp(final double[] distances, final int[] indices, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (distances[parent] >= distances[i]) { return; }
+            swap(distances, indices, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(final double[] distances, final int[] indices, int i, final int size) {
+        while (true) {
+            int left    = 2 * i + 1;
+            int right   = left + 1;
+            int largest = i;
+            if (left < size && distances[left] > distances[largest]) { largest = left; }
+            if (right < size && distances[right] > distances[largest]) { largest = right; }
+            if (largest == i) { return; }
+            swap(distances, indices, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(final double[] distances, final int[] indices, final int i, final int j) {
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+        int index = indices[i];
+        indices[i] = indices[j];
+        indices[j] = index;
+    }
+
+    private static void forEachChunk(final int length, final RangeTask task) {
+        if (length < PARALLEL_THRESHOLD) {
+            task.apply(0, length);
+        } else {
+            int noOfChunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            IntStream.range(0, noOfChunks).parallel().forEach(chunk -> task.apply(chunk * CHUNK_SIZE, Math.min(length, (chunk + 1) * CHUNK_SIZE)));
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    // The state of a single query, this keeps the index itself free of mutable state
+    private static final class Query {
+        private final double[] components = new double[3];
+        private       double   bestDistance;
+        private       int      bestIndex  = -1;
+        private       double[] heapDistances;
+        private       int[]    heapIndices;
+        private       int      count;
+
+        Query(final int argb, final ColorSpace colorSpace) { PackedColor.toColorSpace(argb, colorSpace, components); }
+    }
+
+    @FunctionalInterface private interface RangeTask {
+        void apply(int from, int to);
+    }
+}
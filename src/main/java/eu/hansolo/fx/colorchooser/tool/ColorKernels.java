@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import java.util.stream.IntStream;
+
+
+/**
+ * Bulk color space conversions on arrays of packed ARGB ints. Interleaved
+ * float buffers contain 3 components per color (e.g. h, s, l, h, s, l, ...)
+ * with the same ranges as in PackedColor. Conversions back to packed ints
+ * create opaque colors.
+ * Inputs with at least PARALLEL_THRESHOLD colors will be split into chunks
+ * that are converted in parallel on the common fork join pool. On JDK 17+
+ * the planar YUV and luma kernels use the Vector API if the module
+ * jdk.incubator.vector is available (see isVectorized()).
+ */
+public class ColorKernels {
+    public  static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int CHUNK_SIZE         = 1 << 14;
+
+
+    // ******************** Methods *******************************************
+    public static final boolean isVectorized() { return ColorKernelsSupport.isVectorized(); }
+
+    public static final void unpack(final int[] argb, final float[] rgb) {
+        checkLength(argb.length, rgb.length, 3);
+        forEachChunk(argb.length, (from, to) -> {
+            for (int i = from, j = from * 3 ; i < to ; i++, j += 3) {
+                int color = argb[i];
+                rgb[j]     = ((color >> 16) & 0xFF) / 255f;
+                rgb[j + 1] = ((color >> 8)  & 0xFF) / 255f;
+                rgb[j + 2] = (color & 0xFF) / 255f;
+            }
+        });
+    }
+    public static final void pack(final float[] rgb, final int[] argb) {
+        checkLength(argb.length, rgb.length, 3);
+        forEachChunk(argb.length, (from, to) -> {
+            for (int i = from, j = from * 3 ; i < to ; i++, j += 3) {
+                argb[i] = PackedColor.argb(rgb[j], rgb[j + 1], rgb[j + 2], 1.0);
+            }
+        });
+    }
+
+    public static final void rgbToHsl(final int[] argb, final float[] hsl) {
+        checkLength(argb.length, hsl.length, 3);
+        forEachChunk(argb.length, (from, to) -> {
+            final double[] tmp = new double[3];
+            for (int i = from, j = from * 3 ; i < to ; i++, j += 3) {
+                PackedColor.rgbToHsl(argb[i], tmp);
+                hsl[j]     = (float) tmp[0];
+                hsl[j + 1] = (float) tmp[1];
+                hsl[j + 2] = (float) tmp[2];
+            }
+        });
+    }
+    public static final void hslToRgb(final float[] hsl, final int[] argb) {
+        checkLength(argb.length, hsl.length, 3);
+        forEachChunk(argb.length, (from, to) -> {
+            for (int i = from, j = from * 3 ; i < to ; i++, j += 3) {
+                argb[i] = PackedColor.hslToArgb(hsl[j], hsl[j + 1], hsl[j + 2]);
+            }
+        });
+    }
+
+    public static final void rgbToHsb(final int[] argb, final float[] hsb) {
+        checkLength(argb.length, hsb.length, 3);
+        forEachChunk(argb.length, (from, to) -> {
+            final double[] tmp = new double[3];
+            for (int i = from, j = from * 3 ; i < to ; i++, j += 3) {
+                PackedColor.rgbToHsb(argb[i], tmp);
+                hsb[j]     = (float) tmp[0];
+                hsb[j + 1] = (float) tmp[1];
+                hsb[j + 2] = (float) tmp[2];
+            }
+        });
+    }
+    public static final void hsbToRgb(final float[] hsb, final int[] argb) {
+        checkLength(argb.length, hsb.length, 3);
+        forEachChunk(argb.length, (from, to) -> {
+            for (int i = from, j = from * 3 ; i < to ; i++, j += 3) {
+                argb[i] = PackedColor.hsbToArgb(hsb[j], hsb[j + 1], hsb[j + 2]);
+            }
+        });
+    }
+
+    public static final void rgbToYuv(final int[] argb, final float[] yuv) {
+        checkLength(argb.length, yuv.length, 3);
+        forEachChunk(argb.length, (from, to) -> {
+            final double[] tmp = new double[3];
+            for (int i = from, j = from * 3 ; i < to ; i++, j += 3) {
+                PackedColor.rgbToYuv(argb[i], tmp);
+                yuv[j]     = (float) tmp[0];
+                yuv[j + 1] = (float) tmp[1];
+                yuv[j + 2] = (float) tmp[2];
+            }
+        });
+    }
+    /**
+     * Same as rgbToYuv(int[], float[]) but with one buffer per component,
+     * which is the layout the vectorized kernel works on.
+     */
+    public static final void rgbToYuv(final int[] argb, final float[] y, final float[] u, final float[] v) {
+        checkLength(argb.length, y.length, 1);
+        checkLength(argb.length, u.length, 1);
+        checkLength(argb.length, v.length, 1);
+        forEachChunk(argb.length, (from, to) -> ColorKernelsSupport.rgbToYuv(argb, y, u, v, from, to));
+    }
+    /**
+     * Inverse of rgbToYuv(), the YUV components of every color in the RGB cube
+     * will be converted back to the same color.
+     */
+    public static final void yuvToRgb(final float[] yuv, final int[] argb) {
+        checkLength(argb.length, yuv.length, 3);
+        forEachChunk(argb.length, (from, to) -> {
+            for (int i = from, j = from * 3 ; i < to ; i++, j += 3) {
+                argb[i] = ColorKernelsSupport.yuvToArgb(yuv[j], yuv[j + 1], yuv[j + 2]);
+            }
+        });
+    }
+
+    public static final void luma(final int[] argb, final float[] y) {
+        checkLength(argb.length, y.length, 1);
+        forEachChunk(argb.length, (from, to) -> ColorKernelsSupport.luma(argb, y, from, to));
+    }
+
+    private static final void checkLength(final int noOfColors, final int bufferLength, final int componentsPerColor) {
+        if (bufferLength < noOfColors * componentsPerColor) {
+            throw new IllegalArgumentException("Buffer too small, expected " + (noOfColors * componentsPerColor) + " but was " + bufferLength);
+        }
+    }
+
+    private static final void forEachChunk(final int length, final RangeKernel kernel) {
+        if (length < PARALLEL_THRESHOLD) {
+            kernel.apply(0, length);
+        } else {
+            int noOfChunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            IntStream.range(0, noOfChunks).parallel().forEach(chunk -> kernel.apply(chunk * CHUNK_SIZE, Math.min(length, (chunk + 1) * CHUNK_SIZE)));
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    @FunctionalInterface private interface RangeKernel {
+        void apply(int from, int to);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+/**
+ * Scalar inner loops of the ColorKernels. The multi-release jar contains
+ * a JDK 17 version of this class in META-INF/versions/17 that uses the
+ * Vector API instead (see src/main/java17).
+ */
+class ColorKernelsSupport {
+    static final float WEIGHT_FACTOR_RED   = 0.299f;
+    static final float WEIGHT_FACTOR_GREEN = 0.587f;
+    static final float WEIGHT_FACTOR_BLUE  = 0.114f;
+    static final float U_MAX               = 0.436f;
+    static final float V_MAX               = 0.615f;
+    static final float U_SCALE             = U_MAX / (1 - WEIGHT_FACTOR_BLUE);
+    static final float V_SCALE             = V_MAX / (1 - WEIGHT_FACTOR_RED);
+
+
+    // ******************** Methods *******************************************
+    static boolean isVectorized() { return false; }
+
+    static void rgbToYuv(final int[] argb, final float[] y, final float[] u, final float[] v, final int from, final int to) {
+        for (int i = from ; i < to ; i++) {
+            int   color = argb[i];
+            float red   = ((color >> 16) & 0xFF) / 255f;
+            float green = ((color >> 8)  & 0xFF) / 255f;
+            float blue  = (color & 0xFF) / 255f;
+            float luma  = Math.min(1f, WEIGHT_FACTOR_RED * red + WEIGHT_FACTOR_GREEN * green + WEIGHT_FACTOR_BLUE * blue);
+            y[i] = luma;
+            u[i] = Math.max(-U_MAX, Math.min(U_MAX, (blue - luma) * U_SCALE));
+            v[i] = Math.max(-V_MAX, Math.min(V_MAX, (red - luma) * V_SCALE));
+        }
+    }
+
+    static void luma(final int[] argb, final float[] y, final int from, final int to) {
+        for (int i = from ; i < to ; i++) {
+            int color = argb[i];
+            y[i] = Math.min(1f, (WEIGHT_FACTOR_RED * ((color >> 16) & 0xFF) + WEIGHT_FACTOR_GREEN * ((color >> 8) & 0xFF) + WEIGHT_FACTOR_BLUE * (color & 0xFF)) / 255f);
+        }
+    }
+
+    static int yuvToArgb(final float y, final float u, final float v) {
+        float red   = y + v / V_SCALE;
+        float blue  = y + u / U_SCALE;
+        float green = (y - WEIGHT_FACTOR_RED * red - WEIGHT_FACTOR_BLUE * blue) / WEIGHT_FACTOR_GREEN;
+        return PackedColor.argb(red, green, blue, 1.0);
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+
+/**
+ * Parser for CSS color strings that returns packed ARGB ints (see PackedColor).
+ * Supported are #rgb, #rgba, #rrggbb, #rrggbbaa (the # is optional for 6 and
+ * 8 digits), rgb() and rgba() with numbers or percentages, hsl() and hsla()
+ * and the CSS named colors. The parser is a hand written scanner without
+ * regular expressions. It doesn't allocate on success and can be used from
+ * any thread.
+ */
+public class ColorParser {
+    public  static final long                 INVALID    = -1;
+    private static final long                 ALPHA_FLAG = 1L << 32;
+    private static final ThreadLocal<Scanner> SCANNER    = ThreadLocal.withInitial(Scanner::new);
+    // Sorted by name to be able to use a binary search
+    private static final String[]             NAMES      = {
+        "aliceblue", "antiquewhite", "aqua", "aquamarine", "azure", "beige",
+        "bisque", "black", "blanchedalmond", "blue", "blueviolet", "brown",
+        "burlywood", "cadetblue", "chartreuse", "chocolate", "coral", "cornflowerblue",
+        "cornsilk", "crimson", "cyan", "darkblue", "darkcyan", "darkgoldenrod",
+        "darkgray", "darkgreen", "darkgrey", "darkkhaki", "darkmagenta", "darkolivegreen",
+        "darkorange", "darkorchid", "darkred", "darksalmon", "darkseagreen", "darkslateblue",
+        "darkslategray", "darkslategrey", "darkturquoise", "darkviolet", "deeppink", "deepskyblue",
+        "dimgray", "dimgrey", "dodgerblue", "firebrick", "floralwhite", "forestgreen",
+        "fuchsia", "gainsboro", "ghostwhite", "gold", "goldenrod", "gray",
+        "green", "greenyellow", "grey", "honeydew", "hotpink", "indianred",
+        "indigo", "ivory", "khaki", "lavender", "lavenderblush", "lawngreen",
+        "lemonchiffon", "lightblue", "lightcoral", "lightcyan", "lightgoldenrodyellow", "lightgray",
+        "lightgreen", "lightgrey", "lightpink", "lightsalmon", "lightseagreen", "lightskyblue",
+        "lightslategray", "lightslategrey", "lightsteelblue", "lightyellow", "lime", "limegreen",
+        "linen", "magenta", "maroon", "mediumaquamarine", "mediumblue", "mediumorchid",
+        "mediumpurple", "mediumseagreen", "mediumslateblue", "mediumspringgreen", "mediumturquoise", "mediumvioletred",
+        "midnightblue", "mintcream", "mistyrose", "moccasin", "navajowhite", "navy",
+        "oldlace", "olive", "olivedrab", "orange", "orangered", "orchid",
+        "palegoldenrod", "palegreen", "paleturquoise", "palevioletred", "papayawhip", "peachpuff",
+        "peru", "pink", "plum", "powderblue", "purple", "rebeccapurple",
+        "red", "rosybrown", "royalblue", "saddlebrown", "salmon", "sandybrown",
+        "seagreen", "seashell", "sienna", "silver", "skyblue", "slateblue",
+        "slategray", "slategrey", "snow", "springgreen", "steelblue", "tan",
+        "teal", "thistle", "tomato", "transparent", "turquoise", "violet",
+        "wheat", "white", "whitesmoke", "yellow", "yellowgreen"
+    };
+    private static final int[]                VALUES     = {
+        0xFFF0F8FF, 0xFFFAEBD7, 0xFF00FFFF, 0xFF7FFFD4, 0xFFF0FFFF, 0xFFF5F5DC,
+        0xFFFFE4C4, 0xFF000000, 0xFFFFEBCD, 0xFF0000FF, 0xFF8A2BE2, 0xFFA52A2A,
+        0xFFDEB887, 0xFF5F9EA0, 0xFF7FFF00, 0xFFD2691E, 0xFFFF7F50, 0xFF6495ED,
+        0xFFFFF8DC, 0xFFDC143C, 0xFF00FFFF, 0xFF00008B, 0xFF008B8B, 0xFFB8860B,
+        0xFFA9A9A9, 0xFF006400, 0xFFA9A9A9, 0xFFBDB76B, 0xFF8B008B, 0xFF556B2F,
+        0xFFFF8C00, 0xFF9932CC, 0xFF8B0000, 0xFFE9967A, 0xFF8FBC8F, 0xFF483D8B,
+        0xFF2F4F4F, 0xFF2F4F4F, 0xFF00CED1, 0xFF9400D3, 0xFFFF1493, 0xFF00BFFF,
+        0xFF696969, 0xFF696969, 0xFF1E90FF, 0xFFB22222, 0xFFFFFAF0, 0xFF228B22,
+        0xFFFF00FF, 0xFFDCDCDC, 0xFFF8F8FF, 0xFFFFD700, 0xFFDAA520, 0xFF808080,
+        0xFF008000, 0xFFADFF2F, 0xFF808080, 0xFFF0FFF0, 0xFFFF69B4, 0xFFCD5C5C,
+        0xFF4B0082, 0xFFFFFFF0, 0xFFF0E68C, 0xFFE6E6FA, 0xFFFFF0F5, 0xFF7CFC00,
+        0xFFFFFACD, 0xFFADD8E6, 0xFFF08080, 0xFFE0FFFF, 0xFFFAFAD2, 0xFFD3D3D3,
+        0xFF90EE90, 0xFFD3D3D3, 0xFFFFB6C1, 0xFFFFA07A, 0xFF20B2AA, 0xFF87CEFA,
+        0xFF778899, 0xFF778899, 0xFFB0C4DE, 0xFFFFFFE0, 0xFF00FF00, 0xFF32CD32,
+        0xFFFAF0E6, 0xFFFF00FF, 0xFF800000, 0xFF66CDAA, 0xFF0000CD, 0xFFBA55D3,
+        0xFF9370DB, 0xFF3CB371, 0xFF7B68EE, 0xFF00FA9A, 0xFF48D1CC, 0xFFC71585,
+        0xFF191970, 0xFFF5FFFA, 0xFFFFE4E1, 0xFFFFE4B5, 0xFFFFDEAD, 0xFF000080,
+        0xFFFDF5E6, 0xFF808000, 0xFF6B8E23, 0xFFFFA500, 0xFFFF4500, 0xFFDA70D6,
+        0xFFEEE8AA, 0xFF98FB98, 0xFFAFEEEE, 0xFFDB7093, 0xFFFFEFD5, 0xFFFFDAB9,
+        0xFFCD853F, 0xFFFFC0CB, 0xFFDDA0DD, 0xFFB0E0E6, 0xFF800080, 0xFF663399,
+        0xFFFF0000, 0xFFBC8F8F, 0xFF4169E1, 0xFF8B4513, 0xFFFA8072, 0xFFF4A460,
+        0xFF2E8B57, 0xFFFFF5EE, 0xFFA0522D, 0xFFC0C0C0, 0xFF87CEEB, 0xFF6A5ACD,
+        0xFF708090, 0xFF708090, 0xFFFFFAFA, 0xFF00FF7F, 0xFF4682B4, 0xFFD2B48C,
+        0xFF008080, 0xFFD8BFD8, 0xFFFF6347, 0x00000000, 0xFF40E0D0, 0xFFEE82EE,
+        0xFFF5DEB3, 0xFFFFFFFF, 0xFFF5F5F5, 0xFFFFFF00, 0xFF9ACD32
+    };
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Parses the given text into a packed ARGB value. The ARGB value is in the
+     * lower 32 bit of the result, use toArgb() to get it and hasAlpha() to check
+     * if the text contained an alpha value.
+     * @param text The color text (e.g. "#5a8fd2", "rgba(90, 143, 210, 0.8)", "hsl(214, 57%, 59%)", "steelblue")
+     * @return The parsed color or INVALID if the text is not a valid color
+     */
+    public static final long tryParse(final CharSequence text) {
+        if (null == text) { return INVALID; }
+        return SCANNER.get().parseColor(text);
+    }
+
+    /**
+     * @param text The color text
+     * @return The packed ARGB value of the given color text
+     * @throws IllegalArgumentException if the text is not a valid color
+     */
+    public static final int parse(final CharSequence text) {
+        long result = tryParse(text);
+        if (INVALID == result) { throw new IllegalArgumentException("Invalid color: " + text); }
+        return toArgb(result);
+    }
+
+    public static final boolean isValid(final CharSequence text) { return INVALID != tryParse(text); }
+
+    public static final int toArgb(final long result) { return (int) result; }
+
+    public static final boolean hasAlpha(final long result) { return INVALID != result && 0 != (result & ALPHA_FLAG); }
+
+    /**
+     * Returns the last number in the given text (e.g. 80 for "Opacity 80%").
+     * @param text         The text that contains the number
+     * @param defaultValue The value that will be returned if the text contains no number
+     * @return The last number in the given text or the default value
+     */
+    public static final double parseNumber(final CharSequence text, final double defaultValue) {
+        if (null == text) { return defaultValue; }
+        return SCANNER.get().lastNumber(text, defaultValue);
+    }
+
+    /**
+     * Returns the last pair of hex digits in the given text (e.g. 0xAB for "#AB").
+     * @param text         The text that contains the hex digits
+     * @param defaultValue The value that will be returned if the text contains no pair of hex digits
+     * @return The value of the last pair of hex digits (0 - 255) or the default value
+     */
+    public static final int parseHexByte(final CharSequence text, final int defaultValue) {
+        if (null == text) { return defaultValue; }
+        int result = defaultValue;
+        int length = text.length();
+        int i      = 0;
+        while (i < length) {
+            if (hexDigit(text.charAt(i)) < 0) { i++; continue; }
+            int start = i;
+            while (i < length && hexDigit(text.charAt(i)) >= 0) { i++; }
+            int pairs = (i - start) / 2;
+            if (pairs > 0) {
+                int pair = start + pairs * 2 - 2;
+                result = hexDigit(text.charAt(pair)) << 4 | hexDigit(text.charAt(pair + 1));
+            }
+        }
+        return result;
+    }
+
+    private static final int hexDigit(final char c) {
+        if (c >= '0' && c <= '9') { return c - '0'; }
+        if (c >= 'a' && c <= 'f') { return c - 'a' + 10; }
+        if (c >= 'A' && c <= 'F') { return c - 'A' + 10; }
+        return -1;
+    }
+
+    private static final boolean isDigit(final char c) { return c >= '0' && c <= '9'; }
+
+    private static final boolean isWhitespace(final char c) { return ' ' == c || '\t' == c || '\n' == c || '\r' == c; }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class Scanner {
+        private CharSequence text;
+        private int          pos;
+        private int          end;
+
+
+        // ******************** Methods ***************************************
+        long parseColor(final CharSequence text) {
+            this.text = text;
+            pos       = 0;
+            end       = text.length();
+            while (pos < end && isWhitespace(text.charAt(pos))) { pos++; }
+            while (end > pos && isWhitespace(text.charAt(end - 1))) { end--; }
+
+            long result;
+            if (pos == end) {
+                result = INVALID;
+            } else if ('#' == text.charAt(pos)) {
+                pos++;
+                result = hex(true);
+            } else if (function("rgba") || function("rgb")) {
+                result = rgb();
+            } else if (function("hsla") || function("hsl")) {
+                result = hsl();
+            } else {
+                result = named();
+                if (INVALID == result) { result = hex(false); }
+            }
+            this.text = null;
+            return result;
+        }
+
+        double lastNumber(final CharSequence text, final double defaultValue) {
+            this.text = text;
+            pos       = 0;
+            end       = text.length();
+            double result = defaultValue;
+            while (pos < end) {
+                if (startsNumber()) {
+                    result = number();
+                } else {
+                    pos++;
+                }
+            }
+            this.text = null;
+            return result;
+        }
+
+        private long hex(final boolean hashed) {
+            int length = end - pos;
+            if (!(length == 6 || length == 8 || (hashed && (length == 3 || length == 4)))) { return INVALID; }
+            int value = 0;
+            for (int i = pos ; i < end ; i++) {
+                int digit = hexDigit(text.charAt(i));
+                if (digit < 0) { return INVALID; }
+                value = value << 4 | digit;
+            }
+            // Short forms are expanded to 8 digits, e.g. #5af -> #55aaffff
+            if (length <= 4) {
+                int expanded = 0;
+                for (int i = length - 1 ; i >= 0 ; i--) {
+                    int digit = (value >> (4 * i)) & 0xF;
+                    expanded = expanded << 8 | digit << 4 | digit;
+                }
+                value = 3 == length ? expanded << 8 | 0xFF : expanded;
+            } else if (6 == length) {
+                value = value << 8 | 0xFF;
+            }
+            int rgba = value;
+            return result(rgba >>> 8 | rgba << 24, 4 == length || 8 == length);
+        }
+
+        private long rgb() {
+            int red   = channel255();
+            int green = separator() ? channel255() : -1;
+            int blue  = separator() ? channel255() : -1;
+            if (red < 0 || green < 0 || blue < 0) { return INVALID; }
+            double alpha = alpha();
+            if (Double.isNaN(alpha) || !close()) { return INVALID; }
+            return result(PackedColor.argb(PackedColor.toByte(alpha < 0 ? 1 : alpha), red, green, blue), alpha >= 0);
+        }
+
+        private long hsl() {
+            skipWhitespace();
+            double hue = number();
+            if (Double.isNaN(hue)) { return INVALID; }
+            keyword("deg");
+            double saturation = separator() ? percentage() : Double.NaN;
+            double lightness  = separator() ? percentage() : Double.NaN;
+            if (Double.isNaN(saturation) || Double.isNaN(lightness)) { return INVALID; }
+            double alpha = alpha();
+            if (Double.isNaN(alpha) || !close()) { return INVALID; }
+            hue = hue % 360.0;
+            if (hue < 0) { hue += 360.0; }
+            return result(PackedColor.hslToArgb(hue, saturation / 100.0, lightness / 100.0, alpha < 0 ? 1 : alpha), alpha >= 0);
+        }
+
+        private long named() {
+            int low  = 0;
+            int high = NAMES.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compareName(NAMES[mid]);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    // Named colors like transparent are not opaque and must keep their alpha
+                    return result(VALUES[mid], 0xFF != VALUES[mid] >>> 24);
+                }
+            }
+            return INVALID;
+        }
+
+        // Compares the given lower case name with the remaining text ignoring the case
+        private int compareName(final String name) {
+            int length = end - pos;
+            int n      = Math.min(name.length(), length);
+            for (int i = 0 ; i < n ; i++) {
+                int diff = name.charAt(i) - Character.toLowerCase(text.charAt(pos + i));
+                if (0 != diff) { return diff; }
+            }
+            return name.length() - length;
+        }
+
+        private long result(final int argb, final boolean hasAlpha) { return (argb & 0xFFFFFFFFL) | (hasAlpha ? ALPHA_FLAG : 0); }
+
+        // Returns a channel value (0 - 255) given as number or percentage or -1
+        private int channel255() {
+            skipWhitespace();
+            double value = number();
+            if (Double.isNaN(value)) { return -1; }
+            if (pos < end && '%' == text.charAt(pos)) {
+                pos++;
+                value = value * 255.0 / 100.0;
+            }
+            return (int) Math.round(Helper.clamp(0.0, 255.0, value));
+        }
+
+        private double percentage() {
+            skipWhitespace();
+            double value = number();
+            if (Double.isNaN(value)) { return Double.NaN; }
+            if (pos < end && '%' == text.charAt(pos)) { pos++; }
+            return Helper.clamp(0.0, 100.0, value);
+        }
+
+        // Returns the optional alpha (0 - 1), -1 if there is none or NaN if it is invalid
+        private double alpha() {
+            skipWhitespace();
+            if (pos >= end || (',' != text.charAt(pos) && '/' != text.charAt(pos))) { return -1; }
+            pos++;
+            skipWhitespace();
+            double value = number();
+            if (Double.isNaN(value)) { return Double.NaN; }
+            if (pos < end && '%' == text.charAt(pos)) {
+                pos++;
+                value = value / 100.0;
+            }
+            return Helper.clamp(0.0, 1.0, value);
+        }
+
+        // Skips a comma and/or whitespace between two values
+        private boolean separator() {
+            int start = pos;
+            skipWhitespace();
+            if (pos < end && ',' == text.charAt(pos)) {
+                pos++;
+                skipWhitespace();
+                return true;
+            }
+            return pos > start;
+        }
+
+        private boolean close() {
+            skipWhitespace();
+            if (pos < end && ')' == text.charAt(pos)) {
+                pos++;
+                return pos == end;
+            }
+            return false;
+        }
+
+        // Consumes the given function name and the opening bracket
+        private boolean function(final String name) {
+            int start = pos;
+            if (!keyword(name)) { return false; }
+            skipWhitespace();
+            if (pos < end && '(' == text.charAt(pos)) {
+                pos++;
+                return true;
+            }
+            pos = start;
+            return false;
+        }
+
+        private boolean keyword(final String keyword) {
+            int length = keyword.length();
+            if (end - pos < length) { return false; }
+            for (int i = 0 ; i < length ; i++) {
+                if (Character.toLowerCase(text.charAt(pos + i)) != keyword.charAt(i)) { return false; }
+            }
+            pos += length;
+            return true;
+        }
+
+        private void skipWhitespace() { while (pos < end && isWhitespace(text.charAt(pos))) { pos++; } }
+
+        private boolean startsNumber() {
+            int  i = pos;
+            char c = text.charAt(i);
+            if (('-' == c || '+' == c) && i + 1 < end) { c = text.charAt(++i); }
+            if (isDigit(c)) { return true; }
+            return '.' == c && i + 1 < end && isDigit(text.charAt(i + 1));
+        }
+
+        // Parses a decimal number like -12.5 and returns NaN if there is no number at the current position
+        private double number() {
+            if (pos >= end || !startsNumber()) { return Double.NaN; }
+            boolean negative = '-' == text.charAt(pos);
+            if ('-' == text.charAt(pos) || '+' == text.charAt(pos)) { pos++; }
+            double value = 0;
+            while (pos < end && isDigit(text.charAt(pos))) { value = value * 10 + (text.charAt(pos++) - '0'); }
+            if (pos + 1 < end && '.' == text.charAt(pos) && isDigit(text.charAt(pos + 1))) {
+                pos++;
+                double scale = 1;
+                while (pos < end && isDigit(text.charAt(pos))) {
+                    value  = value * 10 + (text.charAt(pos++) - '0');
+                    scale *= 10;
+                }
+                value /= scale;
+            }
+            return negative ? -value : value;
+        }
+    }
+}
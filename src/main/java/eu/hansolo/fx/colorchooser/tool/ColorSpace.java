@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+/**
+ * Color spaces that can be used to interpolate between colors.
+ * SRGB      : The gamma encoded RGB values, like Color.interpolate()
+ * LINEAR_RGB: The linear RGB values, physically correct blending of light
+ * LAB       : CIE L*a*b* (D65), perceptually uniform
+ * OKLAB     : OKLab, perceptually uniform with more even hues than Lab
+ */
+public enum ColorSpace { SRGB, LINEAR_RGB, LAB, OKLAB }
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Stop;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Immutable gradient that is compiled from a list of stops into sorted
+ * primitive arrays, so that colors can be looked up by a binary search
+ * without any boxing. If a lookup table size is given, getArgb() and
+ * sample() will read the nearest of the precomputed colors instead of
+ * interpolating. Like Helper.getColorAt() the first and last color will
+ * be used below the first and above the last stop. If there are stops
+ * with the same offset, the last one wins. Instances can be shared
+ * between threads.
+ */
+public class CompiledGradient {
+    private final double[] offsets;
+    private final double[] reds;
+    private final double[] greens;
+    private final double[] blues;
+    private final double[] opacities;
+    private final int[]    lookupTable;
+
+
+    // ******************** Constructors **************************************
+    public CompiledGradient(final Stop... stops) { this(Arrays.asList(stops), 0); }
+    public CompiledGradient(final List<Stop> stops) { this(stops, 0); }
+    /**
+     * @param stops           The stops of the gradient, they don't need to be sorted
+     * @param lookupTableSize The number of precomputed colors, 0 to always interpolate
+     */
+    public CompiledGradient(final List<Stop> stops, final int lookupTableSize) {
+        if (lookupTableSize < 0 || 1 == lookupTableSize) { throw new IllegalArgumentException("lookupTableSize must be 0 or at least 2"); }
+        Stop[] sorted = stops.toArray(new Stop[0]);
+        Arrays.sort(sorted, Comparator.comparingDouble(Stop::getOffset)); // stable, equal offsets keep their order
+
+        // Only the last of the stops with the same offset will be used
+        int noOfStops = 0;
+        for (int i = 0 ; i < sorted.length ; i++) {
+            if (i + 1 < sorted.length && Double.compare(sorted[i].getOffset(), sorted[i + 1].getOffset()) == 0) { continue; }
+            sorted[noOfStops++] = sorted[i];
+        }
+
+        offsets   = new double[noOfStops];
+        reds      = new double[noOfStops];
+        greens    = new double[noOfStops];
+        blues     = new double[noOfStops];
+        opacities = new double[noOfStops];
+        for (int i = 0 ; i < noOfStops ; i++) {
+            Color color  = sorted[i].getColor();
+            offsets[i]   = sorted[i].getOffset();
+            reds[i]      = color.getRed();
+            greens[i]    = color.getGreen();
+            blues[i]     = color.getBlue();
+            opacities[i] = color.getOpacity();
+        }
+
+        if (lookupTableSize > 0) {
+            lookupTable = new int[lookupTableSize];
+            double[] rgba = new double[4];
+            if (0 == noOfStops) {
+                // Without stops the gradient is black like in getColor()
+                Arrays.fill(lookupTable, PackedColor.BLACK);
+            } else {
+                for (int i = 0 ; i < lookupTableSize ; i++) {
+                    interpolate(i / (double) (lookupTableSize - 1), rgba);
+                    lookupTable[i] = PackedColor.argb(rgba[0], rgba[1], rgba[2], rgba[3]);
+                }
+            }
+        } else {
+            lookupTable = null;
+        }
+    }
+
+
+    // ******************** Methods *******************************************
+    public int getNoOfStops() { return offsets.length; }
+
+    public int getLookupTableSize() { return null == lookupTable ? 0 : lookupTable.length; }
+
+    /**
+     * Returns the exactly interpolated color at the given position, the
+     * lookup table will not be used.
+     * @param position The position in the range of 0 - 1
+     * @return The color at the given position
+     */
+    public Color getColor(final double position) {
+        if (0 == offsets.length) { return Color.BLACK; }
+        double[] rgba = new double[4];
+        interpolate(position, rgba);
+        return Color.color(rgba[0], rgba[1], rgba[2], rgba[3]);
+    }
+
+    /**
+     * @param position The position in the range of 0 - 1
+     * @return The color at the given position as packed ARGB int (see PackedColor)
+     */
+    public int getArgb(final double position) {
+        if (0 == offsets.length) { return PackedColor.BLACK; }
+        if (null != lookupTable) { return lookupTable[(int) (Helper.clamp(0.0, 1.0, position) * (lookupTable.length - 1) + 0.5)]; }
+        int    index    = indexOf(position);
+        double fraction = fractionOf(position, index);
+        if (fraction <= 0) { return PackedColor.argb(reds[index], greens[index], blues[index], opacities[index]); }
+        return PackedColor.argb(reds[index]      + (reds[index + 1]      - reds[index])      * fraction,
+                                greens[index]    + (greens[index + 1]    - greens[index])    * fraction,
+                                blues[index]     + (blues[index + 1]     - blues[index])     * fraction,
+                                opacities[index] + (opacities[index + 1] - opacities[index]) * fraction);
+    }
+
+    /**
+     * Samples the gradient at all given positions.
+     * @param positions The positions in the range of 0 - 1
+     * @param argbs     The array the packed ARGB colors will be written to, must be at least as long as positions
+     */
+    public void sample(final double[] positions, final int[] argbs) {
+        if (argbs.length < positions.length) { throw new IllegalArgumentException("argbs must be at least as long as positions"); }
+        for (int i = 0 ; i < positions.length ; i++) { argbs[i] = getArgb(positions[i]); }
+    }
+
+    private void interpolate(final double position, final double[] rgba) {
+        int    index    = indexOf(position);
+        double fraction = fractionOf(position, index);
+        if (fraction <= 0) {
+            rgba[0] = reds[index];
+            rgba[1] = greens[index];
+            rgba[2] = blues[index];
+            rgba[3] = opacities[index];
+        } else {
+            rgba[0] = Helper.clamp(0.0, 1.0, reds[index]      + (reds[index + 1]      - reds[index])      * fraction);
+            rgba[1] = Helper.clamp(0.0, 1.0, greens[index]    + (greens[index + 1]    - greens[index])    * fraction);
+            rgba[2] = Helper.clamp(0.0, 1.0, blues[index]     + (blues[index + 1]     - blues[index])     * fraction);
+            rgba[3] = Helper.clamp(0.0, 1.0, opacities[index] + (opacities[index + 1] - opacities[index]) * fraction);
+        }
+    }
+
+    // Returns the index of the last stop with an offset <= position or 0
+    private int indexOf(final double position) {
+        int low  = 0;
+        int high = offsets.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // Returns the fraction between the stop at index and the next one, 0 if there is no next stop
+    private double fractionOf(final double position, final int index) {
+        if (index + 1 >= offsets.length || position <= offsets[index]) { return 0; }
+        return Math.min(1.0, (position - offsets[index]) / (offsets[index + 1] - offsets[index]));
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+/**
+ * Color difference metrics that can be used in ColorDifference.
+ * CIE76    : Euclidean distance in CIE L*a*b*, cheap but too big for saturated colors
+ * CIE94    : CIE L*a*b* with weighted chroma and hue (graphic arts), the first color is the reference
+ * CIEDE2000: The most accurate but also the most expensive metric
+ * OKLAB    : Euclidean distance in OKLab, values are about 1/100 of the CIE values
+ */
+public enum DeltaE { CIE76, CIE94, CIEDE2000, OKLAB }
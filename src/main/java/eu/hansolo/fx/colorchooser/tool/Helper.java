@@ -33,20 +33,21 @@ import javafx.scene.shape.Polygon;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
+import javafx.stage.Window;
 import javafx.util.Pair;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Method;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Properties;
-import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.function.Predicate;
@@ -60,10 +61,7 @@ public class Helper {
     public  static final double  TWO_PI        = Math.PI + Math.PI;
     public  static final double  THREE_PI      = TWO_PI + Math.PI;
     private static final double  EPSILON       = 1E-6;
-    private static final Pattern FLOAT_PATTERN = Pattern.compile("[-+]?[0-9]*\\.?[0-9]+");
-    private static final Matcher FLOAT_MATCHER = FLOAT_PATTERN.matcher("");
     private static final Pattern HEX_PATTERN   = Pattern.compile("#?([A-Fa-f0-9]{8}|[A-Fa-f0-9]{6})");
-    private static final Matcher HEX_MATCHER   = HEX_PATTERN.matcher("");
 
     public static final <T extends Number> T clamp(final T min, final T max, final T value) {
         if (value.doubleValue() < min.doubleValue()) return min;
@@ -208,37 +206,9 @@ public class Helper {
         return rgbToHSL(COLOR.getRed(), COLOR.getGreen(), COLOR.getBlue());
     }
     public static final double[] rgbToHSL(final double RED, final double GREEN, final double BLUE) {
-        //	Minimum and Maximum RGB values are used in the HSL calculations
-        double min = Math.min(RED, Math.min(GREEN, BLUE));
-        double max = Math.max(RED, Math.max(GREEN, BLUE));
-
-        //  Calculate the Hue
-        double hue = 0;
-
-        if (max == min) {
-            hue = 0;
-        } else if (max == RED) {
-            hue = ((60 * (GREEN - BLUE) / (max - min)) + 360) % 360;
-        } else if (max == GREEN) {
-            hue = (60 * (BLUE - RED) / (max - min)) + 120;
-        } else if (max == BLUE) {
-            hue = (60 * (RED - GREEN) / (max - min)) + 240;
-        }
-
-        //  Calculate the Luminance
-        double luminance = (max + min) / 2;
-
-        //  Calculate the Saturation
-        double saturation = 0;
-        if (Double.compare(max, min)  == 0) {
-            saturation = 0;
-        } else if (luminance <= .5) {
-            saturation = (max - min) / (max + min);
-        } else {
-            saturation = (max - min) / (2 - max - min);
-        }
-
-        return new double[] { hue, saturation, luminance };
+        double[] hsl = new double[3];
+        PackedColor.rgbToHsl(RED, GREEN, BLUE, hsl);
+        return hsl;
     }
 
     public static final Color hslToRGB(double hue, double saturation, double luminance) {
@@ -255,50 +225,24 @@ public class Helper {
         double q = luminance < 0.5 ? luminance * (1 + saturation) : (luminance + saturation) - (saturation * luminance);
         double p = 2 * luminance - q;
 
-        double r = clamp(0, 1, hueToRGB(p, q, hue + (1.0/3.0)));
-        double g = clamp(0, 1, hueToRGB(p, q, hue));
-        double b = clamp(0, 1, hueToRGB(p, q, hue - (1.0/3.0)));
+        double r = clamp(0, 1, PackedColor.hueToRgb(p, q, hue + (1.0/3.0)));
+        double g = clamp(0, 1, PackedColor.hueToRgb(p, q, hue));
+        double b = clamp(0, 1, PackedColor.hueToRgb(p, q, hue - (1.0/3.0)));
 
         return Color.color(r, g, b, opacity);
     }
-    private static final double hueToRGB(double p, double q, double t) {
-        if (t < 0) t += 1;
-        if (t > 1) t -= 1;
-        if (6 * t < 1) { return p + ((q - p) * 6 * t); }
-        if (2 * t < 1) { return q; }
-        if (3 * t < 2) { return p + ((q - p) * 6 * ((2.0/3.0) - t)); }
-        return p;
-    }
-
-    public static final String colorToRGB(final Color COLOR) {
-        String hex      = COLOR.toString().replace("0x", "");
-        String hexRed   = hex.substring(0, 2).toUpperCase();
-        String hexGreen = hex.substring(2, 4).toUpperCase();
-        String hexBlue  = hex.substring(4, 6).toUpperCase();
-
-        String intRed   = Integer.toString(Integer.parseInt(hexRed, 16));
-        String intGreen = Integer.toString(Integer.parseInt(hexGreen, 16));
-        String intBlue  = Integer.toString(Integer.parseInt(hexBlue, 16));
 
-        return String.join("", "colorToRGB(", intRed, ", ", intGreen, ", ", intBlue, ")");
+    public static final int toARGB(final Color COLOR) {
+        return PackedColor.argb(COLOR.getRed(), COLOR.getGreen(), COLOR.getBlue(), COLOR.getOpacity());
     }
+    public static final Color fromARGB(final int ARGB) { return ColorCache.get(ARGB); }
 
-    public static final String colorToRGBA(final Color COLOR) { return colorToRGBA(COLOR, COLOR.getOpacity()); }
-    public static final String colorToRGBA(final Color COLOR, final double ALPHA) {
-        String hex      = COLOR.toString().replace("0x", "");
-        String hexRed   = hex.substring(0, 2).toUpperCase();
-        String hexGreen = hex.substring(2, 4).toUpperCase();
-        String hexBlue  = hex.substring(4, 6).toUpperCase();
-
-        String intRed   = Integer.toString(Integer.parseInt(hexRed, 16));
-        String intGreen = Integer.toString(Integer.parseInt(hexGreen, 16));
-        String intBlue  = Integer.toString(Integer.parseInt(hexBlue, 16));
-        String alpha    = String.format(Locale.US, "%.3f", clamp(0, 1, ALPHA));
+    public static final String colorToRGB(final Color COLOR) { return ColorFormat.toRgb(toARGB(COLOR)); }
 
-        return String.join("", "colorToRGBA(", intRed, ", ", intGreen, ", ", intBlue, ",", alpha, ")");
-    }
+    public static final String colorToRGBA(final Color COLOR) { return colorToRGBA(COLOR, COLOR.getOpacity()); }
+    public static final String colorToRGBA(final Color COLOR, final double ALPHA) { return ColorFormat.toRgba(toARGB(COLOR), ALPHA); }
 
-    public static final String colorToWeb(final Color COLOR) { return COLOR.toString().replace("0x", "#").substring(0, 7); }
+    public static final String colorToWeb(final Color COLOR) { return ColorFormat.toWeb(toARGB(COLOR)); }
 
     public static final void adjustTextSize(final Text text, final double maxWidth, final double fontSize) {
         final String FONT_NAME          = text.getFont().getName();
@@ -342,9 +286,7 @@ public class Helper {
         node.setVisible(enable);
     }
 
-    public static final String colorToCss(final Color color) {
-        return color.toString().replace("0x", "#");
-    }
+    public static final String colorToCss(final Color color) { return ColorFormat.toHex8(toARGB(color)); }
 
     public static final ThreadFactory getThreadFactory(final String threadName, final boolean isDaemon) {
         return runnable -> {
@@ -354,6 +296,21 @@ public class Helper {
         };
     }
 
+    /**
+     * Returns an executor that runs every task in a new virtual thread if the
+     * JDK supports virtual threads (JDK 21+). On older JDKs a cached thread pool
+     * with daemon threads will be returned.
+     * @param threadName The name of the threads if virtual threads are not available
+     * @return An executor that uses virtual threads if available
+     */
+    public static final ExecutorService createVirtualThreadExecutor(final String threadName) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(getThreadFactory(threadName, true));
+        }
+    }
+
     public static final void stopTask(ScheduledFuture<?> task) {
         if (null == task) return;
         task.cancel(true);
@@ -365,27 +322,24 @@ public class Helper {
     }
 
     public static final double colorDistance(final Color color1, final Color color2) {
-        final double DELTA_R = (color2.getRed()   - color1.getRed());
-        final double DELTA_G = (color2.getGreen() - color1.getGreen());
-        final double DELTA_B = (color2.getBlue()  - color1.getBlue());
+        return PackedColor.distance(color1.getRed(), color1.getGreen(), color1.getBlue(), color2.getRed(), color2.getGreen(), color2.getBlue());
+    }
 
-        return Math.sqrt(DELTA_R * DELTA_R + DELTA_G * DELTA_G + DELTA_B * DELTA_B);
+    /**
+     * @return The perceptual difference of the given colors in the given metric (see ColorDifference)
+     */
+    public static final double colorDifference(final Color color1, final Color color2, final DeltaE metric) {
+        return ColorDifference.deltaE(toARGB(color1), toARGB(color2), metric);
     }
 
     public static double[] colorToYUV(final Color color) {
-        final double WEIGHT_FACTOR_RED   = 0.299;
-        final double WEIGHT_FACTOR_GREEN = 0.587;
-        final double WEIGHT_FACTOR_BLUE  = 0.144;
-        final double U_MAX               = 0.436;
-        final double V_MAX               = 0.615;
-        double y = clamp(0, 1, WEIGHT_FACTOR_RED * color.getRed() + WEIGHT_FACTOR_GREEN * color.getGreen() + WEIGHT_FACTOR_BLUE * color.getBlue());
-        double u = clamp(-U_MAX, U_MAX, U_MAX * ((color.getBlue() - y) / (1 - WEIGHT_FACTOR_BLUE)));
-        double v = clamp(-V_MAX, V_MAX, V_MAX * ((color.getRed() - y) / (1 - WEIGHT_FACTOR_RED)));
-        return new double[] { y, u, v };
+        double[] yuv = new double[3];
+        PackedColor.rgbToYuv(color.getRed(), color.getGreen(), color.getBlue(), yuv);
+        return yuv;
     }
 
-    public static final boolean isBright(final Color color) { return Double.compare(colorToYUV(color)[0], 0.5) >= 0.0; }
-    public static final boolean isDark(final Color color) { return colorToYUV(color)[0] < 0.5; }
+    public static final boolean isBright(final Color color) { return Double.compare(PackedColor.luma(color.getRed(), color.getGreen(), color.getBlue()), 0.5) >= 0.0; }
+    public static final boolean isDark(final Color color) { return PackedColor.luma(color.getRed(), color.getGreen(), color.getBlue()) < 0.5; }
 
     public static final Color getContrastColor(final Color color) {
         return color.getBrightness() > 0.5 ? Color.BLACK : Color.WHITE;
@@ -395,30 +349,24 @@ public class Helper {
         return Color.color(color.getRed(), color.getGreen(), color.getBlue(), clamp(0.0, 1.0, opacity));
     }
 
+    /**
+     * Creates noOfColors colors from fromColor to toColor interpolated in sRGB.
+     * Use PaletteGenerator for big palettes or other color spaces.
+     */
     public static final List<Color> createColorPalette(final Color fromColor, final Color toColor, final int noOfColors) {
-        int    steps        = clamp(1, 12, noOfColors) - 1;
-        double step         = 1.0 / steps;
-        double deltaRed     = (toColor.getRed()     - fromColor.getRed())     * step;
-        double deltaGreen   = (toColor.getGreen()   - fromColor.getGreen())   * step;
-        double deltaBlue    = (toColor.getBlue()    - fromColor.getBlue())    * step;
-        double deltaOpacity = (toColor.getOpacity() - fromColor.getOpacity()) * step;
-
-        List<Color> palette      = new ArrayList<>(noOfColors);
-        Color       currentColor = fromColor;
-        palette.add(currentColor);
-        for (int i = 0 ; i < steps ; i++) {
-            double red     = clamp(0d, 1d, (currentColor.getRed()     + deltaRed));
-            double green   = clamp(0d, 1d, (currentColor.getGreen()   + deltaGreen));
-            double blue    = clamp(0d, 1d, (currentColor.getBlue()    + deltaBlue));
-            double opacity = clamp(0d, 1d, (currentColor.getOpacity() + deltaOpacity));
-            currentColor   = Color.color(red, green, blue, opacity);
-            palette.add(currentColor);
+        int         size    = Math.max(1, noOfColors);
+        List<Color> palette = new ArrayList<>(size);
+        palette.add(fromColor);
+        for (int i = 1 ; i < size ; i++) {
+            // Each color is computed from its index, adding up deltas would accumulate rounding errors
+            double fraction = i / (double) (size - 1);
+            palette.add(fromColor.interpolate(toColor, fraction));
         }
         return palette;
     }
 
     public static final Color[] createColorVariations(final Color color, final int newNoOfColors) {
-        int    noOfColors = clamp(1, 12, newNoOfColors);
+        int    noOfColors = Math.max(1, newNoOfColors);
         double step       = 0.8 / noOfColors;
         double hue        = color.getHue();
         double brg        = color.getBrightness();
@@ -428,37 +376,8 @@ public class Helper {
     }
 
     public static final Color getColorAt(final List<Stop> stopList, final double positionOfColor) {
-        Map<Double, Stop> STOPS = new TreeMap<>();
-        for (Stop stop : stopList) { STOPS.put(stop.getOffset(), stop); }
-
-        if (STOPS.isEmpty()) return Color.BLACK;
-
-        double minFraction = Collections.min(STOPS.keySet());
-        double maxFraction = Collections.max(STOPS.keySet());
-
-        if (Double.compare(minFraction, 0d) > 0) { STOPS.put(0.0, new Stop(0.0, STOPS.get(minFraction).getColor())); }
-        if (Double.compare(maxFraction, 1d) < 0) { STOPS.put(1.0, new Stop(1.0, STOPS.get(maxFraction).getColor())); }
-
-        final double POSITION = clamp(0d, 1d, positionOfColor);
-        final Color COLOR;
-        if (STOPS.size() == 1) {
-            final Map<Double, Color> ONE_ENTRY = (Map<Double, Color>) STOPS.entrySet().iterator().next();
-            COLOR = STOPS.get(ONE_ENTRY.keySet().iterator().next()).getColor();
-        } else {
-            Stop lowerBound = STOPS.get(0.0);
-            Stop upperBound = STOPS.get(1.0);
-            for (Double fraction : STOPS.keySet()) {
-                if (Double.compare(fraction,POSITION) < 0) {
-                    lowerBound = STOPS.get(fraction);
-                }
-                if (Double.compare(fraction, POSITION) > 0) {
-                    upperBound = STOPS.get(fraction);
-                    break;
-                }
-            }
-            COLOR = interpolateColor(lowerBound, upperBound, POSITION);
-        }
-        return COLOR;
+        // Compile the stops once with new CompiledGradient(stops) if you need more than one color
+        return new CompiledGradient(stopList).getColor(positionOfColor);
     }
     public static final Color interpolateColor(final Stop lowerBound, final Stop upperBound, final double position) {
         final double POS  = (position - lowerBound.getOffset()) / (upperBound.getOffset() - lowerBound.getOffset());
@@ -512,31 +431,55 @@ public class Helper {
         return PROPERTIES;
     }
 
-    public static final <T> Predicate<T> not(Predicate<T> predicate) { return predicate.negate(); }
-
-    public static final double getNumberFromText(final String text) {
-        FLOAT_MATCHER.reset(text);
-        String result = "";
+    /**
+     * Returns the output scale of the window that contains the given node
+     * (e.g. 2.0 on a HiDPI screen). Window.getOutputScaleX() is only available
+     * on JavaFX 9 and above, so 1.0 will be returned on JavaFX 8 or if the node
+     * is not shown in a window yet.
+     * @param node The node to get the output scale for
+     * @return The output scale of the window that contains the given node
+     */
+    public static final double getOutputScale(final Node node) {
+        if (null == OutputScale.METHOD || null == node.getScene() || null == node.getScene().getWindow()) { return 1.0; }
         try {
-            while (FLOAT_MATCHER.find()) {
-                result = FLOAT_MATCHER.group(0);
-            }
-        } catch (IllegalStateException ex) {
-            return 0;
+            double outputScale = (double) OutputScale.METHOD.invoke(node.getScene().getWindow());
+            return outputScale > 0 ? outputScale : 1.0;
+        } catch (ReflectiveOperationException e) {
+            return 1.0;
         }
-        return Double.parseDouble(result);
     }
 
+    public static final <T> Predicate<T> not(Predicate<T> predicate) { return predicate.negate(); }
+
+    public static final double getNumberFromText(final String text) { return ColorParser.parseNumber(text, 0); }
+
     public static final String getHexColorFromString(final String text) {
-        HEX_MATCHER.reset(text);
-        String result = "";
+        // Pattern is thread safe, Matcher is not
+        Matcher matcher = HEX_PATTERN.matcher(text);
+        String  result  = "";
         try {
-            while (HEX_MATCHER.find()) {
-                result = HEX_MATCHER.group(0);
+            while (matcher.find()) {
+                result = matcher.group(0);
             }
         } catch (IllegalStateException ex) {
             return "-";
         }
         return result;
     }
+
+
+    // ******************** Inner Classes *************************************
+    // Looks up Window.getOutputScaleX() on first use, so the color math of this
+    // class can be used without JavaFX on the class path (see ColorChooserModel)
+    private static final class OutputScale {
+        private static final Method METHOD = getMethod();
+
+        private static Method getMethod() {
+            try {
+                return Window.class.getMethod("getOutputScaleX");
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+
+/**
+ * Lookup table for the HSL to RGB conversion of the HSL sliders. The table
+ * contains the fully saturated colors for every hue in degrees and every
+ * lightness in percent (360 x 101 ints, about 142 KB) with 10 bit per
+ * channel. For a given lightness each RGB channel is linear in the
+ * saturation, so other saturations are blended between the gray of the
+ * lightness and the fully saturated color. Hue and lightness will be
+ * rounded to whole degrees and percent and a channel might differ by one
+ * from PackedColor.hslToArgb(). The table will be built on first use and
+ * is shared by all ColorChooser instances.
+ */
+public class HslLookupTable {
+    public  static final int    HUE_STEPS       = 360;
+    public  static final int    LIGHTNESS_STEPS = 101;
+    private static final int    CHANNEL_BITS    = 10;
+    private static final int    CHANNEL_MASK    = (1 << CHANNEL_BITS) - 1;
+    private static final double CHANNEL_MAX     = CHANNEL_MASK;
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the packed ARGB value for the given HSL values.
+     * @param hue        The hue in degrees
+     * @param saturation The saturation (0 - 1)
+     * @param lightness  The lightness (0 - 1)
+     * @param opacity    The opacity (0 - 1)
+     * @return The packed ARGB value of the color
+     */
+    public static final int hslToArgb(final double hue, final double saturation, final double lightness, final double opacity) {
+        int    h = (int) Math.round(hue) % HUE_STEPS;
+        int    l = (int) Math.round(Helper.clamp(0.0, 1.0, lightness) * (LIGHTNESS_STEPS - 1));
+        double s = Helper.clamp(0.0, 1.0, saturation);
+        if (h < 0) { h += HUE_STEPS; }
+
+        int    full  = Holder.TABLE[h * LIGHTNESS_STEPS + l];
+        double gray  = l / (double) (LIGHTNESS_STEPS - 1);
+        double red   = gray + s * (((full >> (2 * CHANNEL_BITS)) & CHANNEL_MASK) / CHANNEL_MAX - gray);
+        double green = gray + s * (((full >> CHANNEL_BITS) & CHANNEL_MASK) / CHANNEL_MAX - gray);
+        double blue  = gray + s * ((full & CHANNEL_MASK) / CHANNEL_MAX - gray);
+        return PackedColor.argb(red, green, blue, opacity);
+    }
+    /**
+     * Returns the packed ARGB value for the given slider values of the HSL mode.
+     * @param hue        The hue in degrees (0 - 360)
+     * @param saturation The saturation in percent (0 - 100)
+     * @param lightness  The lightness in percent (0 - 100)
+     * @return The packed ARGB value of the opaque color
+     */
+    public static final int hslToArgb(final int hue, final int saturation, final int lightness) {
+        return hslToArgb(hue, saturation / 100.0, lightness / 100.0, 1.0);
+    }
+
+    private static final int[] createTable() {
+        int[]    table = new int[HUE_STEPS * LIGHTNESS_STEPS];
+        double[] rgb   = new double[3];
+        for (int h = 0 ; h < HUE_STEPS ; h++) {
+            for (int l = 0 ; l < LIGHTNESS_STEPS ; l++) {
+                PackedColor.hslToRgb(h, 1.0, l / (double) (LIGHTNESS_STEPS - 1), rgb);
+                table[h * LIGHTNESS_STEPS + l] = (int) Math.round(rgb[0] * CHANNEL_MAX) << (2 * CHANNEL_BITS) |
+                                                 (int) Math.round(rgb[1] * CHANNEL_MAX) << CHANNEL_BITS |
+                                                 (int) Math.round(rgb[2] * CHANNEL_MAX);
+            }
+        }
+        return table;
+    }
+
+
+    // ******************** Inner Classes *************************************
+    // The JVM initializes the holder class on first access only once
+    private static final class Holder {
+        private static final int[] TABLE = createTable();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * Immutable palette (packed ARGB ints, see PackedColor) with precomputed
+ * CIE L*a*b* and OKLab values to compare one color with all palette colors
+ * in a single pass (see ColorDifference). The values are stored sorted by
+ * lightness, which is used as cheap prefilter: the lightness difference
+ * alone is a lower bound of every DeltaE metric (divided by
+ * ColorDifference.SL_MAX for CIEDE2000), so closest() and within() only
+ * evaluate the expensive metric for palette colors inside a lightness
+ * window. Instances can be shared between threads.
+ */
+public class LabPalette {
+    private final int[]  palette;
+    private final Values lab;
+    private final Values oklab;
+
+
+    // ******************** Constructors **************************************
+    /**
+     * @param palette The palette colors as packed ARGB ints, the array will be copied
+     */
+    public LabPalette(final int[] palette) {
+        this.palette = palette.clone();
+        this.lab     = new Values(palette, false);
+        this.oklab   = new Values(palette, true);
+    }
+
+
+    // ******************** Methods *******************************************
+    public int size() { return palette.length; }
+
+    public int getColor(final int index) { return palette[index]; }
+
+    /**
+     * Computes the difference between the given color and every palette color.
+     * The given color is the reference color for CIE94.
+     * @param argb        The color
+     * @param metric      The metric that will be used
+     * @param differences The array the difference to each palette color will be written to (in palette order)
+     */
+    public void deltaE(final int argb, final DeltaE metric, final double[] differences) {
+        if (differences.length < palette.length) { throw new IllegalArgumentException("differences must be at least as long as the palette"); }
+        Values   values = valuesOf(metric);
+        double[] ref    = new double[3];
+        toReference(argb, metric, ref);
+        double c = Math.sqrt(ref[1] * ref[1] + ref[2] * ref[2]);
+        for (int i = 0 ; i < values.indices.length ; i++) {
+            differences[values.indices[i]] = values.deltaE(i, ref[0], ref[1], ref[2], c, metric);
+        }
+    }
+    public double[] deltaE(final int argb, final DeltaE metric) {
+        double[] differences = new double[palette.length];
+        deltaE(argb, metric, differences);
+        return differences;
+    }
+
+    /**
+     * @param argb   The color to look for
+     * @param metric The metric that will be used
+     * @return The index of the palette color with the smallest difference or -1 if the palette is empty
+     */
+    public int closest(final int argb, final DeltaE metric) {
+        if (0 == palette.length) { return -1; }
+        Values   values    = valuesOf(metric);
+        double   scale     = DeltaE.CIEDE2000 == metric ? ColorDifference.SL_MAX : 1.0;
+        double[] ref       = new double[3];
+        toReference(argb, metric, ref);
+        double   c         = Math.sqrt(ref[1] * ref[1] + ref[2] * ref[2]);
+        double   best      = Double.POSITIVE_INFINITY;
+        int      bestIndex = -1;
+
+        // Walk outwards from the lightness of the color until the lightness difference alone exceeds the best difference
+        int upper = values.lowerBound(ref[0]);
+        int lower = upper - 1;
+        while (lower >= 0 || upper < values.indices.length) {
+            double lowerBound = lower >= 0 ? (ref[0] - values.l[lower]) / scale : Double.POSITIVE_INFINITY;
+            double upperBound = upper < values.indices.length ? (values.l[upper] - ref[0]) / scale : Double.POSITIVE_INFINITY;
+            int    i;
+            if (lowerBound <= upperBound) {
+                if (lowerBound > best) { break; }
+                i = lower--;
+            } else {
+                if (upperBound > best) { break; }
+                i = upper++;
+            }
+            double difference = values.deltaE(i, ref[0], ref[1], ref[2], c, metric);
+            int    index      = values.indices[i];
+            if (difference < best || (difference == best && index < bestIndex)) {
+                best      = difference;
+                bestIndex = index;
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Looks up the closest palette color for all given colors.
+     * @param argbs   The colors to look for
+     * @param metric  The metric that will be used
+     * @param indices The array the palette indices will be written to, must be at least as long as argbs
+     */
+    public void closest(final int[] argbs, final DeltaE metric, final int[] indices) {
+        if (indices.length < argbs.length) { throw new IllegalArgumentException("indices must be at least as long as argbs"); }
+        for (int i = 0 ; i < argbs.length ; i++) { indices[i] = closest(argbs[i], metric); }
+    }
+
+    /**
+     * @param argb      The color
+     * @param metric    The metric that will be used
+     * @param threshold The max difference
+     * @return The indices of all palette colors with a difference <= threshold in ascending order
+     */
+    public int[] within(final int argb, final DeltaE metric, final double threshold) {
+        Values   values = valuesOf(metric);
+        double   scale  = DeltaE.CIEDE2000 == metric ? ColorDifference.SL_MAX : 1.0;
+        double[] ref    = new double[3];
+        toReference(argb, metric, ref);
+        double   c      = Math.sqrt(ref[1] * ref[1] + ref[2] * ref[2]);
+        int      from   = values.lowerBound(ref[0] - threshold * scale);
+        int      to     = values.lowerBound(Math.nextUp(ref[0] + threshold * scale));
+        int[]    result = new int[Math.max(0, to - from)];
+        int      count  = 0;
+        for (int i = from ; i < to ; i++) {
+            if (values.deltaE(i, ref[0], ref[1], ref[2], c, metric) <= threshold) { result[count++] = values.indices[i]; }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private Values valuesOf(final DeltaE metric) { return DeltaE.OKLAB == metric ? oklab : lab; }
+
+    private static void toReference(final int argb, final DeltaE metric, final double[] ref) {
+        if (DeltaE.OKLAB == metric) {
+            ColorDifference.toOklab(argb, ref);
+        } else {
+            ColorDifference.toLab(argb, ref);
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    // Lightness, a, b and chroma of the palette colors sorted by lightness
+    private static final class Values {
+        private final double[] l;
+        private final double[] a;
+        private final double[] b;
+        private final double[] c;
+        private final int[]    indices;
+
+        Values(final int[] palette, final boolean oklab) {
+            int       size       = palette.length;
+            double[]  components = new double[3];
+            double[]  lightness  = new double[size];
+            Integer[] order      = new Integer[size];
+            for (int i = 0 ; i < size ; i++) {
+                if (oklab) {
+                    PackedColor.rgbToOklab(palette[i], components);
+                } else {
+                    PackedColor.rgbToLab(palette[i], components);
+                }
+                lightness[i] = components[0];
+                order[i]     = i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(i -> lightness[i]));
+
+            l       = new double[size];
+            a       = new double[size];
+            b       = new double[size];
+            c       = new double[size];
+            indices = new int[size];
+            for (int i = 0 ; i < size ; i++) {
+                int index = order[i];
+                if (oklab) {
+                    PackedColor.rgbToOklab(palette[index], components);
+                } else {
+                    PackedColor.rgbToLab(palette[index], components);
+                }
+                indices[i] = index;
+                l[i]       = components[0];
+                a[i]       = components[1];
+                b[i]       = components[2];
+                c[i]       = Math.sqrt(components[1] * components[1] + components[2] * components[2]);
+            }
+        }
+
+        double deltaE(final int i, final double refL, final double refA, final double refB, final double refC, final DeltaE metric) {
+            switch(metric) {
+                case CIE94    : return ColorDifference.cie94(refL, refA, refB, refC, l[i], a[i], b[i], c[i]);
+                case CIEDE2000: return ColorDifference.ciede2000(refL, refA, refB, refC, l[i], a[i], b[i], c[i]);
+                default       : return ColorDifference.cie76(refL, refA, refB, l[i], a[i], b[i]);
+            }
+        }
+
+        // Returns the index of the first value with a lightness >= the given lightness
+        int lowerBound(final double lightness) {
+            int low  = 0;
+            int high = l.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (l[mid] < lightness) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+/**
+ * Color math on colors that are packed into an int as 0xAARRGGBB.
+ * None of the methods allocate, results with more than one component
+ * are written into an out parameter array that is provided by the caller.
+ * Hue values are in degrees (0 - 360), all other components are in the
+ * range of 0 - 1.
+ */
+public class PackedColor {
+    public  static final int      BLACK               = 0xFF000000;
+    public  static final int      WHITE               = 0xFFFFFFFF;
+    public  static final int      TRANSPARENT         = 0x00000000;
+    private static final double   ONE_THIRD           = 1.0 / 3.0;
+    private static final double   TWO_THIRDS          = 2.0 / 3.0;
+    private static final double   WEIGHT_FACTOR_RED   = 0.299;
+    private static final double   WEIGHT_FACTOR_GREEN = 0.587;
+    private static final double   WEIGHT_FACTOR_BLUE  = 0.114;
+    private static final double   U_MAX               = 0.436;
+    private static final double   V_MAX               = 0.615;
+    private static final double   WHITE_X             = 0.95047; // D65
+    private static final double   WHITE_Z             = 1.08883;
+    private static final double   LAB_EPSILON         = 216.0 / 24389.0;
+    private static final double   LAB_KAPPA           = 24389.0 / 27.0;
+    private static final double[] SRGB_TO_LINEAR      = createLinearTable();
+
+
+    // ******************** Packing *******************************************
+    public static final int argb(final int alpha, final int red, final int green, final int blue) {
+        return (alpha & 0xFF) << 24 | (red & 0xFF) << 16 | (green & 0xFF) << 8 | (blue & 0xFF);
+    }
+    public static final int rgb(final int red, final int green, final int blue) { return argb(255, red, green, blue); }
+
+    /**
+     * Packs the given components (0 - 1) into an int, components out of
+     * range will be clamped.
+     */
+    public static final int argb(final double red, final double green, final double blue, final double opacity) {
+        return toByte(opacity) << 24 | toByte(red) << 16 | toByte(green) << 8 | toByte(blue);
+    }
+
+    public static final int alpha(final int argb) { return argb >>> 24; }
+    public static final int red(final int argb)   { return (argb >> 16) & 0xFF; }
+    public static final int green(final int argb) { return (argb >> 8) & 0xFF; }
+    public static final int blue(final int argb)  { return argb & 0xFF; }
+
+    public static final double opacity(final int argb)   { return alpha(argb) / 255.0; }
+    public static final double redValue(final int argb)   { return red(argb) / 255.0; }
+    public static final double greenValue(final int argb) { return green(argb) / 255.0; }
+    public static final double blueValue(final int argb)  { return blue(argb) / 255.0; }
+
+    public static final int toByte(final double value) {
+        if (value <= 0) { return 0; }
+        if (value >= 1) { return 255; }
+        return (int) (value * 255.0 + 0.5);
+    }
+
+
+    // ******************** Opacity *******************************************
+    public static final int withAlpha(final int argb, final int alpha) { return (alpha & 0xFF) << 24 | (argb & 0x00FFFFFF); }
+    public static final int withOpacity(final int argb, final double opacity) { return toByte(opacity) << 24 | (argb & 0x00FFFFFF); }
+
+
+    // ******************** HSL ***********************************************
+    public static final void rgbToHsl(final int argb, final double[] hsl) {
+        rgbToHsl(redValue(argb), greenValue(argb), blueValue(argb), hsl);
+    }
+    public static final void rgbToHsl(final double red, final double green, final double blue, final double[] hsl) {
+        //	Minimum and Maximum RGB values are used in the HSL calculations
+        double min = Math.min(red, Math.min(green, blue));
+        double max = Math.max(red, Math.max(green, blue));
+
+        //  Calculate the Hue
+        double hue = 0;
+        if (max == min) {
+            hue = 0;
+        } else if (max == red) {
+            hue = ((60 * (green - blue) / (max - min)) + 360) % 360;
+        } else if (max == green) {
+            hue = (60 * (blue - red) / (max - min)) + 120;
+        } else if (max == blue) {
+            hue = (60 * (red - green) / (max - min)) + 240;
+        }
+
+        //  Calculate the Luminance
+        double luminance = (max + min) / 2;
+
+        //  Calculate the Saturation
+        double saturation;
+        if (Double.compare(max, min) == 0) {
+            saturation = 0;
+        } else if (luminance <= .5) {
+            saturation = (max - min) / (max + min);
+        } else {
+            saturation = (max - min) / (2 - max - min);
+        }
+
+        hsl[0] = hue;
+        hsl[1] = saturation;
+        hsl[2] = luminance;
+    }
+
+    public static final int hslToArgb(final double hue, final double saturation, final double luminance) {
+        return hslToArgb(hue, saturation, luminance, 1);
+    }
+    public static final int hslToArgb(final double hue, final double saturation, final double luminance, final double opacity) {
+        double s = Helper.clamp(0.0, 1.0, saturation);
+        double l = Helper.clamp(0.0, 1.0, luminance);
+        double h = (hue % 360.0) / 360.0;
+        double q = l < 0.5 ? l * (1 + s) : (l + s) - (s * l);
+        double p = 2 * l - q;
+        return argb(hueToRgb(p, q, h + ONE_THIRD), hueToRgb(p, q, h), hueToRgb(p, q, h - ONE_THIRD), opacity);
+    }
+
+    /**
+     * Converts the given HSL values into RGB values in the range of 0 - 1
+     * without quantizing them to 8 bit.
+     * @param hue        The hue in degrees
+     * @param saturation The saturation (0 - 1)
+     * @param luminance  The luminance (0 - 1)
+     * @param rgb        The array the red, green and blue values will be written to
+     */
+    public static final void hslToRgb(final double hue, final double saturation, final double luminance, final double[] rgb) {
+        double s = Helper.clamp(0.0, 1.0, saturation);
+        double l = Helper.clamp(0.0, 1.0, luminance);
+        double h = (hue % 360.0) / 360.0;
+        double q = l < 0.5 ? l * (1 + s) : (l + s) - (s * l);
+        double p = 2 * l - q;
+        rgb[0] = Helper.clamp(0.0, 1.0, hueToRgb(p, q, h + ONE_THIRD));
+        rgb[1] = Helper.clamp(0.0, 1.0, hueToRgb(p, q, h));
+        rgb[2] = Helper.clamp(0.0, 1.0, hueToRgb(p, q, h - ONE_THIRD));
+    }
+
+    public static final double hueToRgb(final double p, final double q, double t) {
+        if (t < 0) t += 1;
+        if (t > 1) t -= 1;
+        if (6 * t < 1) { return p + ((q - p) * 6 * t); }
+        if (2 * t < 1) { return q; }
+        if (3 * t < 2) { return p + ((q - p) * 6 * (TWO_THIRDS - t)); }
+        return p;
+    }
+
+
+    // ******************** HSB ***********************************************
+    public static final void rgbToHsb(final int argb, final double[] hsb) {
+        rgbToHsb(redValue(argb), greenValue(argb), blueValue(argb), hsb);
+    }
+    public static final void rgbToHsb(final double red, final double green, final double blue, final double[] hsb) {
+        double max = Math.max(red, Math.max(green, blue));
+        double min = Math.min(red, Math.min(green, blue));
+        double hue;
+        if (max == min) {
+            hue = 0;
+        } else {
+            double range = max - min;
+            double r     = (max - red)   / range;
+            double g     = (max - green) / range;
+            double b     = (max - blue)  / range;
+            if (red == max) {
+                hue = b - g;
+            } else if (green == max) {
+                hue = 2.0 + r - b;
+            } else {
+                hue = 4.0 + g - r;
+            }
+            hue /= 6.0;
+            if (hue < 0) { hue += 1.0; }
+        }
+        hsb[0] = hue * 360;
+        hsb[1] = 0 == max ? 0 : (max - min) / max;
+        hsb[2] = max;
+    }
+
+    public static final int hsbToArgb(final double hue, final double saturation, final double brightness) {
+        return hsbToArgb(hue, saturation, brightness, 1);
+    }
+    public static final int hsbToArgb(final double hue, final double saturation, final double brightness, final double opacity) {
+        double s = Helper.clamp(0.0, 1.0, saturation);
+        double b = Helper.clamp(0.0, 1.0, brightness);
+        double h = ((hue % 360.0) + 360.0) % 360.0 / 60.0;
+        double f = h - Math.floor(h);
+        double p = b * (1.0 - s);
+        double q = b * (1.0 - s * f);
+        double t = b * (1.0 - (s * (1.0 - f)));
+        switch ((int) h) {
+            case 0 : return argb(b, t, p, opacity);
+            case 1 : return argb(q, b, p, opacity);
+            case 2 : return argb(p, b, t, opacity);
+            case 3 : return argb(p, q, b, opacity);
+            case 4 : return argb(t, p, b, opacity);
+            default: return argb(b, p, q, opacity);
+        }
+    }
+
+
+    // ******************** YUV ***********************************************
+    public static final void rgbToYuv(final int argb, final double[] yuv) {
+        rgbToYuv(redValue(argb), greenValue(argb), blueValue(argb), yuv);
+    }
+    public static final void rgbToYuv(final double red, final double green, final double blue, final double[] yuv) {
+        double y = luma(red, green, blue);
+        yuv[0] = y;
+        yuv[1] = Helper.clamp(-U_MAX, U_MAX, U_MAX * ((blue - y) / (1 - WEIGHT_FACTOR_BLUE)));
+        yuv[2] = Helper.clamp(-V_MAX, V_MAX, V_MAX * ((red - y) / (1 - WEIGHT_FACTOR_RED)));
+    }
+
+    public static final double luma(final int argb) { return luma(redValue(argb), greenValue(argb), blueValue(argb)); }
+    public static final double luma(final double red, final double green, final double blue) {
+        return Helper.clamp(0.0, 1.0, WEIGHT_FACTOR_RED * red + WEIGHT_FACTOR_GREEN * green + WEIGHT_FACTOR_BLUE * blue);
+    }
+
+    public static final boolean isBright(final int argb) { return Double.compare(luma(argb), 0.5) >= 0; }
+    public static final boolean isDark(final int argb) { return luma(argb) < 0.5; }
+
+
+    // ******************** Linear RGB ****************************************
+    /**
+     * @param srgb A gamma encoded sRGB channel value (0 - 1)
+     * @return The linear channel value (0 - 1)
+     */
+    public static final double toLinear(final double srgb) { return srgb <= 0.04045 ? srgb / 12.92 : Math.pow((srgb + 0.055) / 1.055, 2.4); }
+    public static final double toLinear(final int channel) { return SRGB_TO_LINEAR[channel & 0xFF]; }
+
+    /**
+     * @param linear A linear channel value (0 - 1)
+     * @return The gamma encoded sRGB channel value (0 - 1)
+     */
+    public static final double toSrgb(final double linear) { return linear <= 0.0031308 ? linear * 12.92 : 1.055 * Math.pow(linear, 1.0 / 2.4) - 0.055; }
+
+    public static final int linearToArgb(final double red, final double green, final double blue, final double opacity) {
+        return argb(toSrgb(red), toSrgb(green), toSrgb(blue), opacity);
+    }
+
+
+    // ******************** Lab ***********************************************
+    /**
+     * Converts the given color to CIE L*a*b* (D65) with L in the range of 0 - 100.
+     * @param argb The color
+     * @param lab  The array the L, a and b values will be written to
+     */
+    public static final void rgbToLab(final int argb, final double[] lab) {
+        double red   = toLinear(red(argb));
+        double green = toLinear(green(argb));
+        double blue  = toLinear(blue(argb));
+        double fx    = labF((0.4124564 * red + 0.3575761 * green + 0.1804375 * blue) / WHITE_X);
+        double fy    = labF(0.2126729 * red + 0.7151522 * green + 0.0721750 * blue);
+        double fz    = labF((0.0193339 * red + 0.1191920 * green + 0.9503041 * blue) / WHITE_Z);
+        lab[0] = 116.0 * fy - 16.0;
+        lab[1] = 500.0 * (fx - fy);
+        lab[2] = 200.0 * (fy - fz);
+    }
+
+    public static final int labToArgb(final double l, final double a, final double b, final double opacity) {
+        double fy    = (l + 16.0) / 116.0;
+        double fx    = fy + a / 500.0;
+        double fz    = fy - b / 200.0;
+        double x     = labInverseF(fx) * WHITE_X;
+        double y     = l > LAB_KAPPA * LAB_EPSILON ? fy * fy * fy : l / LAB_KAPPA;
+        double z     = labInverseF(fz) * WHITE_Z;
+        double red   =  3.2404542 * x - 1.5371385 * y - 0.4985314 * z;
+        double green = -0.9692660 * x + 1.8760108 * y + 0.0415560 * z;
+        double blue  =  0.0556434 * x - 0.2040259 * y + 1.0572252 * z;
+        return linearToArgb(red, green, blue, opacity);
+    }
+
+    private static final double labF(final double t) { return t > LAB_EPSILON ? Math.cbrt(t) : (LAB_KAPPA * t + 16.0) / 116.0; }
+
+    private static final double labInverseF(final double t) {
+        double t3 = t * t * t;
+        return t3 > LAB_EPSILON ? t3 : (116.0 * t - 16.0) / LAB_KAPPA;
+    }
+
+
+    // ******************** OKLab *********************************************
+    /**
+     * Converts the given color to OKLab with L in the range of 0 - 1.
+     * @param argb The color
+     * @param lab  The array the L, a and b values will be written to
+     */
+    public static final void rgbToOklab(final int argb, final double[] lab) {
+        double red   = toLinear(red(argb));
+        double green = toLinear(green(argb));
+        double blue  = toLinear(blue(argb));
+        double l     = Math.cbrt(0.4122214708 * red + 0.5363325363 * green + 0.0514459929 * blue);
+        double m     = Math.cbrt(0.2119034982 * red + 0.6806995451 * green + 0.1073969566 * blue);
+        double s     = Math.cbrt(0.0883024619 * red + 0.2817188376 * green + 0.6299787005 * blue);
+        lab[0] = 0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s;
+        lab[1] = 1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s;
+        lab[2] = 0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s;
+    }
+
+    public static final int oklabToArgb(final double l, final double a, final double b, final double opacity) {
+        double l1 = l + 0.3963377774 * a + 0.2158037573 * b;
+        double m1 = l - 0.1055613458 * a - 0.0638541728 * b;
+        double s1 = l - 0.0894841775 * a - 1.2914855480 * b;
+        double l3 = l1 * l1 * l1;
+        double m3 = m1 * m1 * m1;
+        double s3 = s1 * s1 * s1;
+        return linearToArgb( 4.0767416621 * l3 - 3.3077115913 * m3 + 0.2309699292 * s3,
+                            -1.2684380046 * l3 + 2.6097574011 * m3 - 0.3413193965 * s3,
+                            -0.0041960863 * l3 - 0.7034186147 * m3 + 1.7076147010 * s3,
+                             opacity);
+    }
+
+    /**
+     * Converts the given color into the 3 components of the given color space
+     * (red, green, blue in the range of 0 - 1 for SRGB and LINEAR_RGB).
+     * @param argb       The color
+     * @param colorSpace The color space
+     * @param components The array the components will be written to
+     */
+    public static final void toColorSpace(final int argb, final ColorSpace colorSpace, final double[] components) {
+        switch(colorSpace) {
+            case LINEAR_RGB:
+                components[0] = toLinear(red(argb));
+                components[1] = toLinear(green(argb));
+                components[2] = toLinear(blue(argb));
+                break;
+            case LAB       : rgbToLab(argb, components); break;
+            case OKLAB     : rgbToOklab(argb, components); break;
+            default:
+                components[0] = redValue(argb);
+                components[1] = greenValue(argb);
+                components[2] = blueValue(argb);
+                break;
+        }
+    }
+
+    /**
+     * Converts the 3 components of the given color space back to a packed ARGB int.
+     */
+    public static final int fromColorSpace(final double c0, final double c1, final double c2, final double opacity, final ColorSpace colorSpace) {
+        switch(colorSpace) {
+            case LINEAR_RGB: return linearToArgb(c0, c1, c2, opacity);
+            case LAB       : return labToArgb(c0, c1, c2, opacity);
+            case OKLAB     : return oklabToArgb(c0, c1, c2, opacity);
+            default        : return argb(c0, c1, c2, opacity);
+        }
+    }
+
+    private static final double[] createLinearTable() {
+        double[] table = new double[256];
+        for (int i = 0 ; i < 256 ; i++) { table[i] = toLinear(i / 255.0); }
+        return table;
+    }
+
+
+    // ******************** Interpolation *************************************
+    public static final int interpolate(final int from, final int to, final double fraction) {
+        double f = Helper.clamp(0.0, 1.0, fraction);
+        int    a = alpha(from) + (int) Math.round((alpha(to) - alpha(from)) * f);
+        int    r = red(from)   + (int) Math.round((red(to)   - red(from))   * f);
+        int    g = green(from) + (int) Math.round((green(to) - green(from)) * f);
+        int    b = blue(from)  + (int) Math.round((blue(to)  - blue(from))  * f);
+        return argb(a, r, g, b);
+    }
+
+
+    // ******************** Distance ******************************************
+    /**
+     * Returns the euclidean distance of the given colors in RGB space with
+     * the components in the range of 0 - 1 (same as Helper.colorDistance()).
+     */
+    public static final double distance(final int argb1, final int argb2) { return Math.sqrt(distanceSquared(argb1, argb2)) / 255.0; }
+    public static final double distance(final double red1, final double green1, final double blue1, final double red2, final double green2, final double blue2) {
+        final double DELTA_R = (red2   - red1);
+        final double DELTA_G = (green2 - green1);
+        final double DELTA_B = (blue2  - blue1);
+        return Math.sqrt(DELTA_R * DELTA_R + DELTA_G * DELTA_G + DELTA_B * DELTA_B);
+    }
+
+    /**
+     * Returns the squared euclidean distance of the given colors in RGB space
+     * with the components in the range of 0 - 255. Useful to compare distances
+     * without the need of a square root.
+     */
+    public static final int distanceSquared(final int argb1, final int argb2) {
+        int deltaR = red(argb2)   - red(argb1);
+        int deltaG = green(argb2) - green(argb1);
+        int deltaB = blue(argb2)  - blue(argb1);
+        return deltaR * deltaR + deltaG * deltaG + deltaB * deltaB;
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritablePixelFormat;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+
+/**
+ * Extracts the dominant colors of an image with the median cut algorithm.
+ * The pixels are counted in a histogram with 5 bit per channel (32768
+ * bins) that is built in parallel with one histogram per worker of the
+ * common pool and merged, only primitive arrays are used. The median cut
+ * runs on the histogram, so its cost doesn't depend on the size of the
+ * image. The resulting colors are the average colors of the pixels in
+ * each box as opaque packed ARGB ints (see PackedColor), sorted by the
+ * number of pixels, the most frequent color first. Pixels with an alpha
+ * value below MIN_ALPHA will be ignored.
+ */
+public class PaletteExtractor {
+    public  static final int MIN_ALPHA   = 128;
+    private static final int BITS        = 5;
+    private static final int SIDE        = 1 << BITS;
+    private static final int BINS        = SIDE * SIDE * SIDE;
+    private static final int SHIFT       = 8 - BITS;
+    private static final int BLOCK_SIZE  = 1 << 16;
+    private static final int MAX_SEGMENT = 1 << 28;
+
+
+    // ******************** Methods *******************************************
+    /**
+     * @param image      The image
+     * @param noOfColors The max number of colors
+     * @return The dominant colors of the image, the most frequent first
+     */
+    public static final int[] extract(final Image image, final int noOfColors) {
+        final PixelReader                    reader = image.getPixelReader();
+        final int                            width  = (int) image.getWidth();
+        final int                            height = (int) image.getHeight();
+        final WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
+        if (null == reader) { throw new IllegalArgumentException("The pixels of the image can't be read"); }
+        return extract((long) width * height, (from, buffer, count) -> {
+            // Reads the pixels row by row, a range might start and end in the middle of a row
+            int done = 0;
+            while (done < count) {
+                long index = from + done;
+                int  y     = (int) (index / width);
+                int  x     = (int) (index % width);
+                int  run   = Math.min(count - done, width - x);
+                reader.getPixels(x, y, run, 1, format, buffer, done, run);
+                done += run;
+            }
+        }, noOfColors);
+    }
+
+    /**
+     * @param argbs      The pixels as packed ARGB ints
+     * @param noOfColors The max number of colors
+     * @return The dominant colors of the pixels, the most frequent first
+     */
+    public static final int[] extract(final int[] argbs, final int noOfColors) {
+        return extract(argbs.length, (from, buffer, count) -> System.arraycopy(argbs, (int) from, buffer, 0, count), noOfColors);
+    }
+
+    /**
+     * Extracts the dominant colors of a raw file that only contains the pixels
+     * as 32 bit ARGB values in big endian byte order (e.g. written with
+     * DataOutputStream.writeInt()). The file will be memory mapped.
+     * @param file       The file with the pixels
+     * @param noOfColors The max number of colors
+     * @return The dominant colors of the pixels, the most frequent first
+     * @throws IOException If the file can't be read
+     */
+    public static final int[] extract(final Path file, final int noOfColors) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long        noOfPixels = channel.size() / 4;
+            final IntBuffer[] segments   = new IntBuffer[(int) ((noOfPixels + MAX_SEGMENT - 1) / MAX_SEGMENT)];
+            for (int i = 0 ; i < segments.length ; i++) {
+                long position = (long) i * MAX_SEGMENT;
+                long size     = Math.min(MAX_SEGMENT, noOfPixels - position);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position * 4, size * 4).asIntBuffer();
+            }
+            return extract(noOfPixels, (from, buffer, count) -> {
+                int done = 0;
+                while (done < count) {
+                    long      index   = from + done;
+                    IntBuffer segment = segments[(int) (index / MAX_SEGMENT)].duplicate();
+                    int       offset  = (int) (index % MAX_SEGMENT);
+                    int       run     = Math.min(count - done, segment.limit() - offset);
+                    segment.position(offset);
+                    segment.get(buffer, done, run);
+                    done += run;
+                }
+            }, noOfColors);
+        }
+    }
+
+    /**
+     * Extracts the dominant colors of the given image on the common fork join pool.
+     */
+    public static final CompletableFuture<int[]> extractAsync(final Image image, final int noOfColors) {
+        return CompletableFuture.supplyAsync(() -> extract(image, noOfColors), ForkJoinPool.commonPool());
+    }
+
+    private static final int[] extract(final long noOfPixels, final PixelSource source, final int noOfColors) {
+        if (noOfColors < 1) { throw new IllegalArgumentException("noOfColors must be at least 1"); }
+        return medianCut(histogram(noOfPixels, source), noOfColors);
+    }
+
+    // Counts the pixels in parallel with one histogram (1 MB) per worker, the workers take the blocks
+    // of pixels from a shared position so that they stay busy even if some blocks are read slower
+    private static final Histogram histogram(final long noOfPixels, final PixelSource source) {
+        int        noOfWorkers = (int) Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), (noOfPixels + BLOCK_SIZE - 1) / BLOCK_SIZE));
+        AtomicLong position    = new AtomicLong();
+        return IntStream.range(0, noOfWorkers).parallel().mapToObj(worker -> {
+            Histogram histogram = new Histogram();
+            int[]     buffer    = new int[BLOCK_SIZE];
+            for (long from = position.getAndAdd(BLOCK_SIZE) ; from < noOfPixels ; from = position.getAndAdd(BLOCK_SIZE)) {
+                int count = (int) Math.min(BLOCK_SIZE, noOfPixels - from);
+                source.read(from, buffer, count);
+                histogram.add(buffer, count);
+            }
+            return histogram;
+        }).reduce(Histogram::merge).orElseGet(Histogram::new);
+    }
+
+    private static final int[] medianCut(final Histogram histogram, final int noOfColors) {
+        List<Box> boxes = new ArrayList<>();
+        Box       root  = new Box(0, SIDE - 1, 0, SIDE - 1, 0, SIDE - 1);
+        root.shrink(histogram);
+        if (root.count == 0) { return new int[0]; }
+        boxes.add(root);
+
+        // Split by population first and by population * volume for the last quarter to also pick up rare but distinct colors
+        int byPopulation = Math.max(1, (int) Math.ceil(noOfColors * 0.75));
+        while (boxes.size() < noOfColors) {
+            boolean weighted = boxes.size() >= byPopulation;
+            Box     largest  = null;
+            for (Box box : boxes) {
+                if (box.volume() < 2) { continue; }
+                if (null == largest || box.priority(weighted) > largest.priority(weighted)) { largest = box; }
+            }
+            if (null == largest) { break; }
+            Box other = largest.split(histogram);
+            if (null == other) { break; }
+            boxes.add(other);
+        }
+
+        boxes.sort((b1, b2) -> Long.compare(b2.count, b1.count));
+        int[] colors = new int[boxes.size()];
+        for (int i = 0 ; i < colors.length ; i++) { colors[i] = boxes.get(i).average(histogram); }
+        return colors;
+    }
+
+    private static final int bin(final int r, final int g, final int b) { return (r << (2 * BITS)) | (g << BITS) | b; }
+
+
+    // ******************** Inner Classes *************************************
+    @FunctionalInterface private interface PixelSource {
+        void read(long from, int[] buffer, int count);
+    }
+
+    private static final class Histogram {
+        private final long[] counts = new long[BINS];
+        private final long[] reds   = new long[BINS];
+        private final long[] greens = new long[BINS];
+        private final long[] blues  = new long[BINS];
+
+        void add(final int[] argbs, final int count) {
+            for (int i = 0 ; i < count ; i++) {
+                int argb = argbs[i];
+                if ((argb >>> 24) < MIN_ALPHA) { continue; }
+                int red   = (argb >> 16) & 0xFF;
+                int green = (argb >> 8) & 0xFF;
+                int blue  = argb & 0xFF;
+                int bin   = bin(red >> SHIFT, green >> SHIFT, blue >> SHIFT);
+                counts[bin]++;
+                reds[bin]   += red;
+                greens[bin] += green;
+                blues[bin]  += blue;
+            }
+        }
+
+        Histogram merge(final Histogram other) {
+            for (int i = 0 ; i < BINS ; i++) {
+                counts[i] += other.counts[i];
+                reds[i]   += other.reds[i];
+                greens[i] += other.greens[i];
+                blues[i]  += other.blues[i];
+            }
+            return this;
+        }
+    }
+
+    // A box of histogram bins, the bounds are inclusive
+    private static final class Box {
+        private int  r0;
+        private int  r1;
+        private int  g0;
+        private int  g1;
+        private int  b0;
+        private int  b1;
+        private long count;
+
+        Box(final int r0, final int r1, final int g0, final int g1, final int b0, final int b1) {
+            this.r0 = r0;
+            this.r1 = r1;
+            this.g0 = g0;
+            this.g1 = g1;
+            this.b0 = b0;
+            this.b1 = b1;
+        }
+
+        int volume() { return (r1 - r0 + 1) * (g1 - g0 + 1) * (b1 - b0 + 1); }
+
+        double priority(final boolean weighted) { return weighted ? (double) count * volume() : count; }
+
+        // Shrinks the box to the bins that contain pixels and counts them
+        void shrink(final Histogram histogram) {
+            int minR = SIDE;
+            int maxR = -1;
+            int minG = SIDE;
+            int maxG = -1;
+            int minB = SIDE;
+            int maxB = -1;
+            count = 0;
+            for (int r = r0 ; r <= r1 ; r++) {
+                for (int g = g0 ; g <= g1 ; g++) {
+                    for (int b = b0 ; b <= b1 ; b++) {
+                        long binCount = histogram.counts[bin(r, g, b)];
+                        if (0 == binCount) { continue; }
+                        count += binCount;
+                        minR   = Math.min(minR, r);
+                        maxR   = Math.max(maxR, r);
+                        minG   = Math.min(minG, g);
+                        maxG   = Math.max(maxG, g);
+                        minB   = Math.min(minB, b);
+                        maxB   = Math.max(maxB, b);
+                    }
+                }
+            }
+            if (count > 0) {
+                r0 = minR;
+                r1 = maxR;
+                g0 = minG;
+                g1 = maxG;
+                b0 = minB;
+                b1 = maxB;
+            }
+        }
+
+        // Splits the box at the median of its longest side, this box keeps the lower half
+        Box split(final Histogram histogram) {
+            int rLength = r1 - r0;
+            int gLength = g1 - g0;
+            int bLength = b1 - b0;
+            int axis    = rLength >= gLength && rLength >= bLength ? 0 : gLength >= bLength ? 1 : 2;
+            int from    = 0 == axis ? r0 : 1 == axis ? g0 : b0;
+            int to      = 0 == axis ? r1 : 1 == axis ? g1 : b1;
+
+            // Find the first slice where the cumulated count reaches half of the pixels, both halves must not be empty
+            long half = count / 2;
+            long sum  = 0;
+            int  cut  = from;
+            for (int slice = from ; slice < to ; slice++) {
+                sum += sliceCount(histogram, axis, slice);
+                cut  = slice;
+                if (sum >= half) { break; }
+            }
+
+            Box other = new Box(r0, r1, g0, g1, b0, b1);
+            switch(axis) {
+                case 0 : r1 = cut; other.r0 = cut + 1; break;
+                case 1 : g1 = cut; other.g0 = cut + 1; break;
+                default: b1 = cut; other.b0 = cut + 1; break;
+            }
+            shrink(histogram);
+            other.shrink(histogram);
+            return other.count > 0 ? other : null;
+        }
+
+        private long sliceCount(final Histogram histogram, final int axis, final int slice) {
+            long sum = 0;
+            for (int r = 0 == axis ? slice : r0 ; r <= (0 == axis ? slice : r1) ; r++) {
+                for (int g = 1 == axis ? slice : g0 ; g <= (1 == axis ? slice : g1) ; g++) {
+                    for (int b = 2 == axis ? slice : b0 ; b <= (2 == axis ? slice : b1) ; b++) {
+                        sum += histogram.counts[bin(r, g, b)];
+                    }
+                }
+            }
+            return sum;
+        }
+
+        int average(final Histogram histogram) {
+            long n     = 0;
+            long red   = 0;
+            long green = 0;
+            long blue  = 0;
+            for (int r = r0 ; r <= r1 ; r++) {
+                for (int g = g0 ; g <= g1 ; g++) {
+                    for (int b = b0 ; b <= b1 ; b++) {
+                        int bin = bin(r, g, b);
+                        n     += histogram.counts[bin];
+                        red   += histogram.reds[bin];
+                        green += histogram.greens[bin];
+                        blue  += histogram.blues[bin];
+                    }
+                }
+            }
+            return n == 0 ? PackedColor.BLACK : PackedColor.rgb((int) (red / n), (int) (green / n), (int) (blue / n));
+        }
+    }
+}
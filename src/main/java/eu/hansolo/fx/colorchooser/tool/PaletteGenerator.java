@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import java.util.stream.IntStream;
+
+
+/**
+ * Creates palettes of any size as packed ARGB ints (see PackedColor).
+ * Every color is computed directly from its index, so there is no drift
+ * even for palettes with thousands of colors. Gradient palettes run evenly
+ * through the given key colors and are interpolated in the given ColorSpace.
+ * Use stream() to process huge palettes without creating an array.
+ */
+public class PaletteGenerator {
+    public  static final double GOLDEN_ANGLE      = 137.50776405003785;
+    public  static final double DEFAULT_LIGHTNESS = 0.7;
+    public  static final double DEFAULT_CHROMA    = 0.12;
+
+
+    // ******************** Methods *******************************************
+    public static final int[] createPalette(final int fromArgb, final int toArgb, final int noOfColors, final ColorSpace colorSpace) {
+        return createPalette(new int[] { fromArgb, toArgb }, noOfColors, colorSpace);
+    }
+    /**
+     * @param keyColors  The colors the palette runs through, evenly spaced
+     * @param noOfColors The number of colors in the palette
+     * @param colorSpace The color space that will be used to interpolate between the key colors
+     * @return The palette as packed ARGB ints
+     */
+    public static final int[] createPalette(final int[] keyColors, final int noOfColors, final ColorSpace colorSpace) {
+        int[] palette = new int[noOfColors];
+        fill(keyColors, colorSpace, palette, 0, noOfColors);
+        return palette;
+    }
+
+    /**
+     * Writes a palette of length colors into the given array starting at offset.
+     */
+    public static final void fill(final int[] keyColors, final ColorSpace colorSpace, final int[] palette, final int offset, final int length) {
+        final double[] keys = toColorSpace(keyColors, colorSpace);
+        for (int i = 0 ; i < length ; i++) { palette[offset + i] = colorAt(keys, colorSpace, fraction(i, length)); }
+    }
+
+    public static final IntStream stream(final int fromArgb, final int toArgb, final int noOfColors, final ColorSpace colorSpace) {
+        return stream(new int[] { fromArgb, toArgb }, noOfColors, colorSpace);
+    }
+    /**
+     * Returns a lazy stream of the palette colors, the colors will only be
+     * computed when they are consumed. The stream can be used in parallel.
+     */
+    public static final IntStream stream(final int[] keyColors, final int noOfColors, final ColorSpace colorSpace) {
+        final double[] keys = toColorSpace(keyColors, colorSpace);
+        return IntStream.range(0, noOfColors).map(i -> colorAt(keys, colorSpace, fraction(i, noOfColors)));
+    }
+
+    /**
+     * @param keyColors  The colors the gradient runs through, evenly spaced
+     * @param fraction   The position in the gradient (0 - 1)
+     * @param colorSpace The color space that will be used to interpolate between the key colors
+     * @return The color at the given position as packed ARGB int
+     */
+    public static final int colorAt(final int[] keyColors, final double fraction, final ColorSpace colorSpace) {
+        return colorAt(toColorSpace(keyColors, colorSpace), colorSpace, fraction);
+    }
+
+    /**
+     * Creates categorical colors with the same lightness and chroma in OKLab
+     * whose hues are rotated by the golden angle, so that neighbouring colors
+     * are always well distinguishable.
+     * @param noOfColors The number of colors
+     * @param lightness  The OKLab lightness (0 - 1), DEFAULT_LIGHTNESS is a good start
+     * @param chroma     The OKLab chroma, high values lead to clipped colors
+     * @return The categorical colors as packed ARGB ints
+     */
+    public static final int[] createCategorical(final int noOfColors, final double lightness, final double chroma) {
+        return streamCategorical(noOfColors, lightness, chroma).toArray();
+    }
+    public static final IntStream streamCategorical(final int noOfColors, final double lightness, final double chroma) {
+        return IntStream.range(0, noOfColors).map(i -> {
+            double hue = Math.toRadians((i * GOLDEN_ANGLE) % 360.0);
+            return PackedColor.oklabToArgb(lightness, chroma * Math.cos(hue), chroma * Math.sin(hue), 1.0);
+        });
+    }
+
+    private static final double fraction(final int index, final int noOfColors) { return noOfColors > 1 ? index / (double) (noOfColors - 1) : 0; }
+
+    // Converts the key colors into a flat array with 4 values (3 components and opacity) per color
+    private static final double[] toColorSpace(final int[] keyColors, final ColorSpace colorSpace) {
+        if (0 == keyColors.length) { throw new IllegalArgumentException("At least one key color is needed"); }
+        double[] keys = new double[keyColors.length * 4];
+        double[] components = new double[3];
+        for (int i = 0 ; i < keyColors.length ; i++) {
+            int k = i * 4;
+            PackedColor.toColorSpace(keyColors[i], colorSpace, components);
+            keys[k]     = components[0];
+            keys[k + 1] = components[1];
+            keys[k + 2] = components[2];
+            keys[k + 3] = PackedColor.opacity(keyColors[i]);
+        }
+        return keys;
+    }
+
+    private static final int colorAt(final double[] keys, final ColorSpace colorSpace, final double fraction) {
+        int    noOfSegments = keys.length / 4 - 1;
+        double position     = Helper.clamp(0.0, 1.0, fraction) * noOfSegments;
+        int    segment      = Math.min((int) position, Math.max(0, noOfSegments - 1));
+        double t            = noOfSegments > 0 ? position - segment : 0;
+        int    from         = segment * 4;
+        int    to           = noOfSegments > 0 ? from + 4 : from;
+        double c0           = keys[from]     + (keys[to]     - keys[from])     * t;
+        double c1           = keys[from + 1] + (keys[to + 1] - keys[from + 1]) * t;
+        double c2           = keys[from + 2] + (keys[to + 2] - keys[from + 2]) * t;
+        double opacity      = keys[from + 3] + (keys[to + 3] - keys[from + 3]) * t;
+        return PackedColor.fromColorSpace(c0, c1, c2, opacity, colorSpace);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+
+/**
+ * Read only access to the colors of a palette by index, e.g. to draw only
+ * the visible part of a huge palette. PaletteStore implements it directly,
+ * arrays can be wrapped with of().
+ */
+public interface PaletteSource {
+    int size();
+
+    /**
+     * @return The color at the given index as packed ARGB int (see PackedColor)
+     */
+    int getArgb(int index);
+
+    /**
+     * @return The name of the color at the given index or null
+     */
+    default String getName(final int index) { return null; }
+
+    /**
+     * Copies the colors of length entries starting at index from into the given array.
+     */
+    default void getArgbs(final int from, final int[] argbs, final int offset, final int length) {
+        for (int i = 0 ; i < length ; i++) { argbs[offset + i] = getArgb(from + i); }
+    }
+
+    static PaletteSource of(final int... argbs) {
+        final int[] colors = argbs.clone();
+        return new PaletteSource() {
+            @Override public int size() { return colors.length; }
+            @Override public int getArgb(final int index) { return colors[index]; }
+            @Override public void getArgbs(final int from, final int[] argbs, final int offset, final int length) { System.arraycopy(colors, from, argbs, offset, length); }
+        };
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import javafx.scene.paint.Color;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * Palette file that is read through a MappedByteBuffer, opening a palette
+ * only reads the header, so it takes the same time for 10 or 10 million
+ * colors. Colors and names are decoded when they are requested.
+ * The file consists of a header of HEADER_SIZE bytes followed by records
+ * with a fixed size, so every entry can be located by its index:
+ * <pre>
+ * Header : int magic ("CPAL"), short version, short flags (unused),
+ *          int max name bytes, int number of entries, 16 bytes reserved
+ * Record : int argb, followed by an unsigned short name length and
+ *          max name bytes of UTF-8 if the max name bytes are &gt; 0
+ * </pre>
+ * All values are big endian. Appended entries are written behind the last
+ * record and afterwards the number of entries in the header is updated,
+ * the existing records will never be rewritten. Reading can be done from
+ * any number of threads, appending is synchronized.
+ * The records are mapped in segments of at most SEGMENT_SIZE bytes, full
+ * segments are mapped only once. A writable store grows the file
+ * geometrically, so appending and reading entries one by one only remaps
+ * the last segment a few times instead of once per entry.
+ * The file will be truncated to its records on close. A mapped file can't
+ * be shrunk on every platform, so if a segment was mapped the slack of at
+ * most one segment stays in the file until it is opened writable again.
+ * The number of entries in the header bounds the records, so the slack
+ * will never be read.
+ */
+public class PaletteStore implements PaletteSource, Closeable {
+    public  static final int                MAGIC            = 0x4350414C; // CPAL
+    public  static final short              VERSION          = 1;
+    public  static final int                HEADER_SIZE      = 32;
+    public  static final int                MAX_NAME_BYTES   = 0xFFFF;
+    public  static final int                SEGMENT_SIZE     = 1 << 26;
+    private static final int                VERSION_OFFSET   = 4;
+    private static final int                NAME_SIZE_OFFSET = 8;
+    private static final int                COUNT_OFFSET     = 12;
+    private static final int                MIN_CAPACITY     = 64;
+    private        final FileChannel        channel;
+    private        final boolean            writable;
+    private        final int                maxNameBytes;
+    private        final int                recordSize;
+    private        final int                segmentRecords;
+    private volatile     int                size;
+    private volatile     MappedByteBuffer[] segments;
+    private              long               capacity;
+
+
+    // ******************** Constructors **************************************
+    private PaletteStore(final FileChannel channel, final boolean writable) throws IOException {
+        this.channel  = channel;
+        this.writable = writable;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) { throw new IOException("Not a palette file, the header is incomplete"); }
+        }
+        if (header.getInt(0) != MAGIC) { throw new IOException("Not a palette file"); }
+        if (header.getShort(VERSION_OFFSET) > VERSION) { throw new IOException("Unsupported palette file version " + header.getShort(VERSION_OFFSET)); }
+        maxNameBytes   = header.getInt(NAME_SIZE_OFFSET);
+        if (maxNameBytes < 0 || maxNameBytes > MAX_NAME_BYTES) { throw new IOException("Not a palette file, invalid max name bytes " + maxNameBytes); }
+        recordSize     = maxNameBytes > 0 ? 6 + maxNameBytes : 4;
+        segmentRecords = SEGMENT_SIZE / recordSize;
+        size           = header.getInt(COUNT_OFFSET);
+        capacity       = channel.size();
+        if (capacity < HEADER_SIZE + (long) size * recordSize) { throw new IOException("The palette file is truncated"); }
+        segments       = new MappedByteBuffer[0];
+        // Removes the slack a previous store left because it had mapped segments on close
+        if (writable) { truncateToRecords(); }
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Creates a new empty palette file.
+     * @param file         The file, must not exist
+     * @param maxNameBytes The max number of UTF-8 bytes per name, 0 for a palette without names
+     * @return The opened palette, ready for appending
+     * @throws IOException If the file exists or can't be written
+     */
+    public static final PaletteStore create(final Path file, final int maxNameBytes) throws IOException {
+        if (maxNameBytes < 0 || maxNameBytes > MAX_NAME_BYTES) { throw new IllegalArgumentException("maxNameBytes must be in the range of 0 - " + MAX_NAME_BYTES); }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(0, MAGIC);
+            header.putShort(VERSION_OFFSET, VERSION);
+            header.putInt(NAME_SIZE_OFFSET, maxNameBytes);
+            header.putInt(COUNT_OFFSET, 0);
+            writeFully(channel, header, 0);
+            return new PaletteStore(channel, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing palette file, only the header will be read.
+     * @param file     The file
+     * @param writable If true entries can be appended
+     * @return The opened palette
+     * @throws IOException If the file can't be read or is no palette file
+     */
+    public static final PaletteStore open(final Path file, final boolean writable) throws IOException {
+        FileChannel channel = writable ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE) : FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new PaletteStore(channel, writable);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override public int size() { return size; }
+
+    public boolean isWritable() { return writable; }
+
+    public boolean hasNames() { return maxNameBytes > 0; }
+
+    public int getMaxNameBytes() { return maxNameBytes; }
+
+    /**
+     * @param index The index of the entry
+     * @return The color of the entry as packed ARGB int (see PackedColor)
+     */
+    @Override public int getArgb(final int index) {
+        checkIndex(index);
+        return segmentFor(index).getInt(offsetOf(index));
+    }
+
+    public Color getColor(final int index) { return ColorCache.get(getArgb(index)); }
+
+    /**
+     * Copies the colors of length entries starting at index from into the given array.
+     */
+    @Override public void getArgbs(final int from, final int[] argbs, final int offset, final int length) {
+        if (length <= 0) { return; }
+        checkIndex(from);
+        checkIndex(from + length - 1);
+        int        last    = from + length - 1;
+        ByteBuffer current = null;
+        for (int i = 0 ; i < length ; i++) {
+            int index = from + i;
+            // The segment is looked up for the last requested entry in it, so it covers all entries up to that one
+            if (null == current || 0 == index % segmentRecords) { current = segmentFor(Math.min(last, index - index % segmentRecords + segmentRecords - 1)); }
+            argbs[offset + i] = current.getInt(offsetOf(index));
+        }
+    }
+
+    /**
+     * @param index The index of the entry
+     * @return The name of the entry or null if the palette has no names or the entry has no name
+     */
+    @Override public String getName(final int index) {
+        checkIndex(index);
+        if (0 == maxNameBytes) { return null; }
+        ByteBuffer current = segmentFor(index);
+        int        offset  = offsetOf(index) + 4;
+        int        length  = current.getShort(offset) & 0xFFFF;
+        if (0 == length) { return null; }
+        byte[] bytes = new byte[length];
+        for (int i = 0 ; i < length ; i++) { bytes[i] = current.get(offset + 2 + i); }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int append(final int argb) throws IOException { return append(argb, null); }
+    /**
+     * Appends an entry without rewriting the existing entries. Names that are
+     * longer than the max name bytes will be truncated.
+     * @param argb The color as packed ARGB int
+     * @param name The name or null
+     * @return The index of the new entry
+     * @throws IOException If the entry can't be written
+     */
+    public synchronized int append(final int argb, final String name) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(recordSize);
+        putRecord(record, argb, name);
+        record.flip();
+        return appendRecords(record, 1);
+    }
+    /**
+     * Appends the given colors without names with one write.
+     * @return The index of the first new entry
+     */
+    public synchronized int append(final int[] argbs) throws IOException {
+        ByteBuffer records = ByteBuffer.allocate(argbs.length * recordSize);
+        for (int argb : argbs) { putRecord(records, argb, null); }
+        records.flip();
+        return appendRecords(records, argbs.length);
+    }
+
+    /**
+     * Reads the number of entries from the header again to see entries that
+     * were appended by another PaletteStore on the same file.
+     * @return The number of entries
+     */
+    public synchronized int refresh() throws IOException {
+        ByteBuffer count = ByteBuffer.allocate(4);
+        while (count.hasRemaining()) {
+            if (channel.read(count, COUNT_OFFSET + count.position()) < 0) { throw new IOException("The palette file is truncated"); }
+        }
+        size = Math.max(size, count.getInt(0));
+        return size;
+    }
+
+    /**
+     * Forces all appended entries to be written to the storage device.
+     */
+    public void flush() throws IOException { if (writable) { channel.force(false); } }
+
+    /**
+     * Closes the file, the file of a writable palette will be truncated to its
+     * records if none of its segments was mapped.
+     */
+    @Override public synchronized void close() throws IOException {
+        if (!channel.isOpen()) { return; }
+        try {
+            if (writable && 0 == segments.length) { truncateToRecords(); }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void truncateToRecords() {
+        long end = HEADER_SIZE + (long) size * recordSize;
+        if (capacity <= end) { return; }
+        try {
+            channel.truncate(end);
+            capacity = end;
+        } catch (IOException e) {
+            // Another PaletteStore maps the file (not allowed on every platform), the slack will be removed later
+        }
+    }
+
+    private int appendRecords(final ByteBuffer records, final int noOfRecords) throws IOException {
+        if (!writable) { throw new IllegalStateException("The palette was opened read only"); }
+        if ((long) size + noOfRecords > Integer.MAX_VALUE) { throw new IllegalStateException("The palette would exceed " + Integer.MAX_VALUE + " entries"); }
+        int index = size;
+        ensureCapacity(HEADER_SIZE + ((long) index + noOfRecords) * recordSize);
+        // The records are written first, so the header never counts entries that are not complete
+        writeFully(channel, records, HEADER_SIZE + (long) index * recordSize);
+        ByteBuffer count = ByteBuffer.allocate(4);
+        count.putInt(0, index + noOfRecords);
+        writeFully(channel, count, COUNT_OFFSET);
+        size = index + noOfRecords;
+        return index;
+    }
+
+    private void putRecord(final ByteBuffer record, final int argb, final String name) {
+        int start = record.position();
+        record.putInt(argb);
+        if (maxNameBytes > 0) {
+            byte[] bytes  = null == name ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+            int    length = Math.min(bytes.length, maxNameBytes);
+            // Don't cut a multi byte character in half
+            while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) { length--; }
+            record.putShort((short) length);
+            record.put(bytes, 0, length);
+        }
+        record.position(start + recordSize);
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) { throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size); }
+    }
+
+    // Offset of the record in its segment
+    private int offsetOf(final int index) { return (index % segmentRecords) * recordSize; }
+
+    // Full segments are mapped once, the last segment will be mapped again when entries behind its mapped region are read
+    private ByteBuffer segmentFor(final int index) {
+        int                segment = index / segmentRecords;
+        int                end     = offsetOf(index) + recordSize;
+        MappedByteBuffer[] current = segments;
+        if (segment < current.length && null != current[segment] && current[segment].capacity() >= end) { return current[segment]; }
+        synchronized (this) {
+            current = segments;
+            if (segment < current.length && null != current[segment] && current[segment].capacity() >= end) { return current[segment]; }
+            MappedByteBuffer[] updated = current.length > segment ? current.clone() : Arrays.copyOf(current, segment + 1);
+            try {
+                updated[segment] = mapSegment(segment, end);
+            } catch (IOException e) {
+                throw new IllegalStateException("The palette file can't be mapped", e);
+            }
+            segments = updated;
+            return updated[segment];
+        }
+    }
+
+    // Maps the whole segment or as much of it as the file contains (a writable palette grows its file in advance)
+    private MappedByteBuffer mapSegment(final int segment, final int minBytes) throws IOException {
+        long position = HEADER_SIZE + (long) segment * segmentRecords * recordSize;
+        long length   = Math.min((long) segmentRecords * recordSize, channel.size() - position);
+        if (length < minBytes) { throw new IOException("The palette file is truncated"); }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    // Grows the file by at least 50% but not more than one segment at a time
+    private void ensureCapacity(final long required) throws IOException {
+        if (required <= capacity) { return; }
+        long records = Math.max(capacity - HEADER_SIZE, (long) MIN_CAPACITY * recordSize);
+        long grown   = HEADER_SIZE + Math.min(records + (records >> 1), records + (long) segmentRecords * recordSize);
+        long target  = Math.max(required, grown);
+        writeFully(channel, ByteBuffer.allocate(1), target - 1);
+        capacity = target;
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) { offset += channel.write(buffer, offset); }
+    }
+}
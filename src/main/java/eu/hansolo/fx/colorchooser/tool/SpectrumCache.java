@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import javafx.scene.image.WritableImage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Process wide cache for spectrum images. All ColorChooser instances with
+ * the same canvas size and output scale share one image. The least recently
+ * used images will be evicted if the cache contains more than maxEntries images.
+ */
+public class SpectrumCache {
+    public  static final int                      DEFAULT_MAX_ENTRIES = 16;
+    private static final Object                   LOCK                = new Object();
+    private static final Map<Key, WritableImage>  CACHE               = new LinkedHashMap<Key, WritableImage>(32, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(final Map.Entry<Key, WritableImage> eldest) { return size() > maxEntries; }
+    };
+    private static       int                      maxEntries          = DEFAULT_MAX_ENTRIES;
+    private static       long                     hits;
+    private static       long                     misses;
+    private static       long                     evictions;
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the spectrum image for the given size and output scale. The image
+     * will be rendered and cached if it is not in the cache yet. The size of the
+     * image in pixels is ceil(width * outputScale) x ceil(height * outputScale).
+     * @param width       The width of the canvas
+     * @param height      The height of the canvas
+     * @param outputScale The output scale of the screen (e.g. 2 on HiDPI screens)
+     * @return The spectrum image for the given size and output scale
+     */
+    public static final WritableImage get(final double width, final double height, final double outputScale) {
+        final Key key = new Key(width, height, outputScale);
+        WritableImage image = getIfPresent(key);
+        if (null != image) { return image; }
+
+        // Render outside of the lock, if another thread was faster its image will be used
+        image = SpectrumRenderer.createImage(key.pixelWidth, key.pixelHeight);
+        return putIfAbsent(key, image);
+    }
+
+    public static final WritableImage getIfPresent(final double width, final double height, final double outputScale) {
+        return getIfPresent(new Key(width, height, outputScale));
+    }
+
+    /**
+     * Adds an already rendered spectrum image to the cache. If the cache already
+     * contains an image for the given size and scale, that image will be returned
+     * and the given image will be dropped.
+     * @param width       The width of the canvas
+     * @param height      The height of the canvas
+     * @param outputScale The output scale of the screen
+     * @param image       The spectrum image
+     * @return The image that is stored in the cache for the given size and scale
+     */
+    public static final WritableImage put(final double width, final double height, final double outputScale, final WritableImage image) {
+        return putIfAbsent(new Key(width, height, outputScale), image);
+    }
+
+    public static final int getPixelWidth(final double width, final double outputScale) { return Math.max(1, (int) Math.ceil(width * outputScale)); }
+    public static final int getPixelHeight(final double height, final double outputScale) { return Math.max(1, (int) Math.ceil(height * outputScale)); }
+
+    public static final int getMaxEntries() { synchronized (LOCK) { return maxEntries; } }
+    public static final void setMaxEntries(final int maxEntries) {
+        if (maxEntries < 1) { throw new IllegalArgumentException("maxEntries must be at least 1"); }
+        synchronized (LOCK) {
+            SpectrumCache.maxEntries = maxEntries;
+            while (CACHE.size() > maxEntries) {
+                CACHE.remove(CACHE.keySet().iterator().next());
+                evictions++;
+            }
+        }
+    }
+
+    public static final int size() { synchronized (LOCK) { return CACHE.size(); } }
+
+    public static final long getHits() { synchronized (LOCK) { return hits; } }
+    public static final long getMisses() { synchronized (LOCK) { return misses; } }
+    public static final long getEvictions() { synchronized (LOCK) { return evictions; } }
+    public static final double getHitRatio() {
+        synchronized (LOCK) {
+            long requests = hits + misses;
+            return 0 == requests ? 0 : (double) hits / requests;
+        }
+    }
+
+    public static final void clear() {
+        synchronized (LOCK) {
+            CACHE.clear();
+            hits      = 0;
+            misses    = 0;
+            evictions = 0;
+        }
+    }
+
+    private static final WritableImage getIfPresent(final Key key) {
+        synchronized (LOCK) {
+            WritableImage image = CACHE.get(key);
+            if (null == image) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return image;
+        }
+    }
+
+    private static final WritableImage putIfAbsent(final Key key, final WritableImage image) {
+        synchronized (LOCK) {
+            WritableImage cached = CACHE.get(key);
+            if (null != cached) { return cached; }
+            int sizeBefore = CACHE.size();
+            CACHE.put(key, image);
+            if (CACHE.size() <= sizeBefore) { evictions++; }
+            return image;
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class Key {
+        private final int    width;
+        private final int    height;
+        private final double outputScale;
+        private final int    pixelWidth;
+        private final int    pixelHeight;
+
+
+        // ******************** Constructors **********************************
+        Key(final double width, final double height, final double outputScale) {
+            this.width       = (int) Math.ceil(width);
+            this.height      = (int) Math.ceil(height);
+            this.outputScale = outputScale;
+            this.pixelWidth  = getPixelWidth(this.width, outputScale);
+            this.pixelHeight = getPixelHeight(this.height, outputScale);
+        }
+
+
+        // ******************** Methods ***************************************
+        @Override public boolean equals(final Object o) {
+            if (this == o) { return true; }
+            if (!(o instanceof Key)) { return false; }
+            Key key = (Key) o;
+            return width == key.width && height == key.height && Double.compare(outputScale, key.outputScale) == 0;
+        }
+
+        @Override public int hashCode() {
+            long scaleBits = Double.doubleToLongBits(outputScale);
+            int  result    = width;
+            result = 31 * result + height;
+            result = 31 * result + (int) (scaleBits ^ (scaleBits >>> 32));
+            return result;
+        }
+    }
+}
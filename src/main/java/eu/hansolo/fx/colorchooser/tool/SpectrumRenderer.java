@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+
+
+/**
+ * Renders the hue/lightness spectrum that is shown in the ColorChooser
+ * into a primitive ARGB buffer. The hue runs from 0 to 360 degrees along
+ * the x axis and the lightness runs from 1 to 0 along the y axis, the
+ * saturation is always 1.
+ */
+public class SpectrumRenderer {
+    public  static final int    PARALLEL_THRESHOLD = 65_536;
+    private static final int    BAND_HEIGHT        = 16;
+    private static final double ONE_THIRD          = 1.0 / 3.0;
+
+
+    // ******************** Methods *******************************************
+    public static final int[] render(final int width, final int height) {
+        final int[] buffer = new int[width * height];
+        renderRows(buffer, width, height, 0, height);
+        return buffer;
+    }
+
+    /**
+     * Fills the rows fromRow (inclusive) to toRow (exclusive) of the given
+     * buffer with the spectrum colors. Each row only writes its own part of
+     * the buffer which makes it possible to render bands of rows independently.
+     * @param buffer  The ARGB buffer with a size of at least width * height
+     * @param width   The width of the spectrum in pixels
+     * @param height  The height of the spectrum in pixels
+     * @param fromRow The first row to render
+     * @param toRow   The row after the last row to render
+     */
+    public static final void renderRows(final int[] buffer, final int width, final int height, final int fromRow, final int toRow) {
+        renderRows(buffer, createColumns(width), width, height, fromRow, toRow);
+    }
+
+    /**
+     * Renders the spectrum on the given fork join pool. The rows are split into
+     * bands that are rendered in parallel into one pixel buffer. Cancelling the
+     * returned future stops the rendering of all bands that did not start yet.
+     * @param width  The width of the spectrum in pixels
+     * @param height The height of the spectrum in pixels
+     * @param pool   The fork join pool that should be used to render the bands
+     * @return A future that will be completed with the ARGB pixel buffer or exceptionally if the rendering failed
+     */
+    public static final CompletableFuture<int[]> renderAsync(final int width, final int height, final ForkJoinPool pool) {
+        final CompletableFuture<int[]> future = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                try {
+                    final int[] buffer = new int[width * height];
+                    new RowBand(buffer, createColumns(width), width, height, 0, height, future).invoke();
+                    future.complete(buffer);
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    public static final CompletableFuture<int[]> renderAsync(final int width, final int height) {
+        return renderAsync(width, height, ForkJoinPool.commonPool());
+    }
+
+    public static final WritableImage createImage(final int width, final int height) {
+        return toImage(render(width, height), width, height);
+    }
+
+    public static final WritableImage toImage(final int[] buffer, final int width, final int height) {
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), buffer, 0, width);
+        return image;
+    }
+
+    // The hue only depends on x, so the hue part of the HSL conversion is done once per column
+    private static final double[] createColumns(final int width) {
+        final double   xStep   = 360.0 / width;
+        final double[] columns = new double[width * 3];
+        for (int x = 0 ; x < width ; x++) {
+            double hue = ((x * xStep) % 360.0) / 360.0;
+            columns[x * 3]     = hueToChannel(hue + ONE_THIRD);
+            columns[x * 3 + 1] = hueToChannel(hue);
+            columns[x * 3 + 2] = hueToChannel(hue - ONE_THIRD);
+        }
+        return columns;
+    }
+
+    private static final void renderRows(final int[] buffer, final double[] columns, final int width, final int height, final int fromRow, final int toRow) {
+        final double yStep = 1.0 / height;
+        for (int y = fromRow ; y < toRow ; y++) {
+            double luminance = Helper.clamp(0.0, 1.0, 1.0 - y * yStep);
+            double q         = luminance < 0.5 ? luminance * 2.0 : 1.0;
+            double p         = 2.0 * luminance - q;
+            double delta     = q - p;
+            int    offset    = y * width;
+            for (int x = 0, c = 0 ; x < width ; x++, c += 3) {
+                int r = (int) ((p + delta * columns[c])     * 255.0 + 0.5);
+                int g = (int) ((p + delta * columns[c + 1]) * 255.0 + 0.5);
+                int b = (int) ((p + delta * columns[c + 2]) * 255.0 + 0.5);
+                buffer[offset + x] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    // Same as the hueToRGB in Helper with p = 0 and q = 1
+    private static final double hueToChannel(double t) {
+        if (t < 0) t += 1;
+        if (t > 1) t -= 1;
+        if (6 * t < 1) { return 6 * t; }
+        if (2 * t < 1) { return 1; }
+        if (3 * t < 2) { return 6 * ((2.0 / 3.0) - t); }
+        return 0;
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class RowBand extends RecursiveAction {
+        private static final long                     serialVersionUID = 1L;
+        private        final int[]                    buffer;
+        private        final double[]                 columns;
+        private        final int                      width;
+        private        final int                      height;
+        private        final int                      fromRow;
+        private        final int                      toRow;
+        private        final CompletableFuture<int[]> future;
+
+
+        // ******************** Constructors **********************************
+        RowBand(final int[] buffer, final double[] columns, final int width, final int height, final int fromRow, final int toRow, final CompletableFuture<int[]> future) {
+            this.buffer  = buffer;
+            this.columns = columns;
+            this.width   = width;
+            this.height  = height;
+            this.fromRow = fromRow;
+            this.toRow   = toRow;
+            this.future  = future;
+        }
+
+
+        // ******************** Methods ***************************************
+        @Override protected void compute() {
+            if (future.isDone()) { return; }
+            if (toRow - fromRow <= BAND_HEIGHT) {
+                renderRows(buffer, columns, width, height, fromRow, toRow);
+            } else {
+                int middle = (fromRow + toRow) >>> 1;
+                invokeAll(new RowBand(buffer, columns, width, height, fromRow, middle, future),
+                          new RowBand(buffer, columns, width, height, middle, toRow, future));
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * JDK 17 version of the ColorKernels inner loops. The Vector API is still
+ * an incubator module, so it will only be used if the application was
+ * started with --add-modules jdk.incubator.vector. Otherwise the scalar
+ * loops will be used. The vector code lives in the nested class Vectorized
+ * which will only be loaded if the module is available.
+ */
+class ColorKernelsSupport {
+    static final float   WEIGHT_FACTOR_RED   = 0.299f;
+    static final float   WEIGHT_FACTOR_GREEN = 0.587f;
+    static final float   WEIGHT_FACTOR_BLUE  = 0.114f;
+    static final float   U_MAX               = 0.436f;
+    static final float   V_MAX               = 0.615f;
+    static final float   U_SCALE             = U_MAX / (1 - WEIGHT_FACTOR_BLUE);
+    static final float   V_SCALE             = V_MAX / (1 - WEIGHT_FACTOR_RED);
+    static final boolean VECTORIZED          = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+
+    // ******************** Methods *******************************************
+    static boolean isVectorized() { return VECTORIZED; }
+
+    static void rgbToYuv(final int[] argb, final float[] y, final float[] u, final float[] v, final int from, final int to) {
+        int i = VECTORIZED ? Vectorized.rgbToYuv(argb, y, u, v, from, to) : from;
+        for ( ; i < to ; i++) {
+            int   color = argb[i];
+            float red   = ((color >> 16) & 0xFF) / 255f;
+            float green = ((color >> 8)  & 0xFF) / 255f;
+            float blue  = (color & 0xFF) / 255f;
+            float luma  = Math.min(1f, WEIGHT_FACTOR_RED * red + WEIGHT_FACTOR_GREEN * green + WEIGHT_FACTOR_BLUE * blue);
+            y[i] = luma;
+            u[i] = Math.max(-U_MAX, Math.min(U_MAX, (blue - luma) * U_SCALE));
+            v[i] = Math.max(-V_MAX, Math.min(V_MAX, (red - luma) * V_SCALE));
+        }
+    }
+
+    static void luma(final int[] argb, final float[] y, final int from, final int to) {
+        int i = VECTORIZED ? Vectorized.luma(argb, y, from, to) : from;
+        for ( ; i < to ; i++) {
+            int color = argb[i];
+            y[i] = Math.min(1f, (WEIGHT_FACTOR_RED * ((color >> 16) & 0xFF) + WEIGHT_FACTOR_GREEN * ((color >> 8) & 0xFF) + WEIGHT_FACTOR_BLUE * (color & 0xFF)) / 255f);
+        }
+    }
+
+    static int yuvToArgb(final float y, final float u, final float v) {
+        float red   = y + v / V_SCALE;
+        float blue  = y + u / U_SCALE;
+        float green = (y - WEIGHT_FACTOR_RED * red - WEIGHT_FACTOR_BLUE * blue) / WEIGHT_FACTOR_GREEN;
+        return PackedColor.argb(red, green, blue, 1.0);
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class Vectorized {
+        private static final VectorSpecies<Integer> INT_SPECIES   = IntVector.SPECIES_PREFERRED;
+        private static final VectorSpecies<Float>   FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+        private static final float                  INV_255       = 1f / 255f;
+
+
+        // ******************** Methods ***************************************
+        // Returns the index of the first color that was not converted
+        static int rgbToYuv(final int[] argb, final float[] y, final float[] u, final float[] v, final int from, final int to) {
+            final int step  = INT_SPECIES.length();
+            final int bound = from + (to - from) / step * step;
+            int i = from;
+            for ( ; i < bound ; i += step) {
+                IntVector   color = IntVector.fromArray(INT_SPECIES, argb, i);
+                FloatVector red   = channel(color, 16);
+                FloatVector green = channel(color, 8);
+                FloatVector blue  = channel(color, 0);
+                FloatVector luma  = red.mul(WEIGHT_FACTOR_RED).add(green.mul(WEIGHT_FACTOR_GREEN)).add(blue.mul(WEIGHT_FACTOR_BLUE)).min(1f);
+                luma.intoArray(y, i);
+                blue.sub(luma).mul(U_SCALE).max(-U_MAX).min(U_MAX).intoArray(u, i);
+                red.sub(luma).mul(V_SCALE).max(-V_MAX).min(V_MAX).intoArray(v, i);
+            }
+            return i;
+        }
+
+        static int luma(final int[] argb, final float[] y, final int from, final int to) {
+            final int step  = INT_SPECIES.length();
+            final int bound = from + (to - from) / step * step;
+            int i = from;
+            for ( ; i < bound ; i += step) {
+                IntVector color = IntVector.fromArray(INT_SPECIES, argb, i);
+                channel(color, 16).mul(WEIGHT_FACTOR_RED)
+                                  .add(channel(color, 8).mul(WEIGHT_FACTOR_GREEN))
+                                  .add(channel(color, 0).mul(WEIGHT_FACTOR_BLUE))
+                                  .min(1f)
+                                  .intoArray(y, i);
+            }
+            return i;
+        }
+
+        private static FloatVector channel(final IntVector color, final int shift) {
+            return ((FloatVector) color.lanewise(VectorOperators.LSHR, shift)
+                                       .and(0xFF)
+                                       .convertShape(VectorOperators.I2F, FLOAT_SPECIES, 0)).mul(INV_255);
+        }
+    }
+}
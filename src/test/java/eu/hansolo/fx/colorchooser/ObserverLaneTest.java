@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class ObserverLaneTest {
+    // Events are strings like "fill:1", only fill and stroke events may be coalesced
+    private static int key(final String evt) {
+        if (evt.startsWith("fill:"))   { return 0; }
+        if (evt.startsWith("stroke:")) { return 1; }
+        return ObserverLane.NO_COALESCE;
+    }
+
+    private static final class ManualExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override public void execute(final Runnable task) { tasks.add(task); }
+
+        void runAll() { while (!tasks.isEmpty()) { tasks.poll().run(); } }
+    }
+
+
+    @Test public void keepsArrivalOrder() {
+        ManualExecutor       executor = new ManualExecutor();
+        List<String>         received = new ArrayList<>();
+        ObserverLane<String> lane     = new ObserverLane<>(this, executor, received::add, ObserverLaneTest::key);
+
+        lane.offer("fillCommit:1");
+        lane.offer("fill:2");
+        executor.runAll();
+
+        assertEquals(Arrays.asList("fillCommit:1", "fill:2"), received);
+    }
+
+    @Test public void neverDropsCommits() {
+        ManualExecutor       executor = new ManualExecutor();
+        List<String>         received = new ArrayList<>();
+        ObserverLane<String> lane     = new ObserverLane<>(this, executor, received::add, ObserverLaneTest::key);
+
+        lane.offer("fill:1");
+        lane.offer("fill:2");
+        lane.offer("fillCommit:2");
+        lane.offer("fill:3");
+        lane.offer("stroke:1");
+        lane.offer("fill:4");
+        lane.offer("fillCommit:4");
+        executor.runAll();
+
+        assertEquals(Arrays.asList("fill:2", "fillCommit:2", "stroke:1", "fill:4", "fillCommit:4"), received);
+    }
+
+    @Test public void deliversEventsOfferedWhileDraining() {
+        ManualExecutor                        executor = new ManualExecutor();
+        List<String>                          received = new ArrayList<>();
+        AtomicReference<ObserverLane<String>> lane     = new AtomicReference<>();
+        lane.set(new ObserverLane<>(this, executor, evt -> {
+            received.add(evt);
+            if ("fillCommit:1".equals(evt)) { lane.get().offer("fill:2"); }
+        }, ObserverLaneTest::key));
+
+        lane.get().offer("fillCommit:1");
+        executor.runAll();
+
+        assertEquals(Arrays.asList("fillCommit:1", "fill:2"), received);
+    }
+}
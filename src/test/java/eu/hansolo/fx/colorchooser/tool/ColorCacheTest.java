@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import javafx.scene.paint.Color;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class ColorCacheTest {
+    private static int toArgb(final Color color) { return PackedColor.argb(color.getRed(), color.getGreen(), color.getBlue(), color.getOpacity()); }
+
+    @After public void reset() {
+        ColorCache.setCapacity(ColorCache.DEFAULT_CAPACITY);
+        ColorCache.clear();
+    }
+
+
+    @Test public void internsColors() {
+        ColorCache.clear();
+        Color red = ColorCache.get(0xFFFF0000);
+        assertEquals(Color.RED, red);
+        assertSame(red, ColorCache.get(0xFFFF0000));
+        assertSame(red, ColorCache.get(255, 0, 0, 1.0));
+
+        // Transparent black must not be mistaken for an empty slot
+        Color transparent = ColorCache.get(0x00000000);
+        assertEquals(Color.TRANSPARENT, transparent);
+        assertSame(transparent, ColorCache.get(0x00000000));
+
+        assertEquals(2, ColorCache.size());
+        assertEquals(3, ColorCache.getHits());
+        assertEquals(2, ColorCache.getMisses());
+    }
+
+    @Test public void evictsWhenFull() {
+        ColorCache.setCapacity(ColorCache.MIN_CAPACITY);
+        ColorCache.clear();
+        for (int argb = 0 ; argb < 1000 ; argb++) { assertEquals(argb, toArgb(ColorCache.get(argb))); }
+        assertTrue(ColorCache.size() <= ColorCache.MIN_CAPACITY);
+        assertTrue(ColorCache.getEvictions() > 0);
+    }
+
+    @Test public void concurrentLookupsReturnMatchingColors() throws Exception {
+        ColorCache.setCapacity(ColorCache.MIN_CAPACITY);
+        ExecutorService       executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> results  = new ArrayList<>();
+        try {
+            for (int t = 0 ; t < 4 ; t++) {
+                results.add(executor.submit(() -> {
+                    int mismatches = 0;
+                    for (int i = 0 ; i < 200_000 ; i++) {
+                        int argb = 0xFF000000 | ThreadLocalRandom.current().nextInt(64);
+                        if (toArgb(ColorCache.get(argb)) != argb) { mismatches++; }
+                    }
+                    return mismatches;
+                }));
+            }
+            for (Future<Integer> result : results) { assertEquals(0, result.get().intValue()); }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
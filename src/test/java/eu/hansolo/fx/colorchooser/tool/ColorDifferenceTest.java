@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+
+public class ColorDifferenceTest {
+    private static final double EPSILON = 1e-9;
+
+    // Test data of G. Sharma, W. Wu, E. N. Dalal, "The CIEDE2000 Color-Difference Formula" (2005), L1 a1 b1 L2 a2 b2 deltaE
+    private static final double[][] SHARMA = {
+        { 50.0000,   2.6772, -79.7751, 50.0000,   0.0000, -82.7485,  2.0425 },
+        { 50.0000,   3.1571, -77.2803, 50.0000,   0.0000, -82.7485,  2.8615 },
+        { 50.0000,   2.8361, -74.0200, 50.0000,   0.0000, -82.7485,  3.4412 },
+        { 50.0000,  -1.3802, -84.2814, 50.0000,   0.0000, -82.7485,  1.0000 },
+        { 50.0000,  -1.1848, -84.8006, 50.0000,   0.0000, -82.7485,  1.0000 },
+        { 50.0000,  -0.9009, -85.5211, 50.0000,   0.0000, -82.7485,  1.0000 },
+        { 50.0000,   0.0000,   0.0000, 50.0000,  -1.0000,   2.0000,  2.3669 },
+        { 50.0000,  -1.0000,   2.0000, 50.0000,   0.0000,   0.0000,  2.3669 },
+        { 50.0000,   2.4900,  -0.0010, 50.0000,  -2.4900,   0.0009,  7.1792 },
+        { 50.0000,   2.4900,  -0.0010, 50.0000,  -2.4900,   0.0010,  7.1792 },
+        { 50.0000,   2.4900,  -0.0010, 50.0000,  -2.4900,   0.0011,  7.2195 },
+        { 50.0000,   2.4900,  -0.0010, 50.0000,  -2.4900,   0.0012,  7.2195 },
+        { 50.0000,  -0.0010,   2.4900, 50.0000,   0.0009,  -2.4900,  4.8045 },
+        { 50.0000,  -0.0010,   2.4900, 50.0000,   0.0010,  -2.4900,  4.8045 },
+        { 50.0000,  -0.0010,   2.4900, 50.0000,   0.0011,  -2.4900,  4.7461 },
+        { 50.0000,   2.5000,   0.0000, 50.0000,   0.0000,  -2.5000,  4.3065 },
+        { 50.0000,   2.5000,   0.0000, 73.0000,  25.0000, -18.0000, 27.1492 },
+        { 50.0000,   2.5000,   0.0000, 61.0000,  -5.0000,  29.0000, 22.8977 },
+        { 50.0000,   2.5000,   0.0000, 56.0000, -27.0000,  -3.0000, 31.9030 },
+        { 50.0000,   2.5000,   0.0000, 58.0000,  24.0000,  15.0000, 19.4535 },
+        { 50.0000,   2.5000,   0.0000, 50.0000,   3.1736,   0.5854,  1.0000 },
+        { 50.0000,   2.5000,   0.0000, 50.0000,   3.2972,   0.0000,  1.0000 },
+        { 50.0000,   2.5000,   0.0000, 50.0000,   1.8634,   0.5757,  1.0000 },
+        { 50.0000,   2.5000,   0.0000, 50.0000,   3.2592,   0.3350,  1.0000 },
+        { 60.2574, -34.0099,  36.2677, 60.4626, -34.1751,  39.4387,  1.2644 },
+        { 63.0109, -31.0961,  -5.8663, 62.8187, -29.7946,  -4.0864,  1.2630 },
+        { 61.2901,   3.7196,  -5.3901, 61.4292,   2.2480,  -4.9620,  1.8731 },
+        { 35.0831, -44.1164,   3.7933, 35.0232, -40.0716,   1.5901,  1.8645 },
+        { 22.7233,  20.0904, -46.6940, 23.0331,  14.9730, -42.5619,  2.0373 },
+        { 36.4612,  47.8580,  18.3852, 36.2715,  50.5065,  21.2231,  1.4146 },
+        { 90.8027,  -2.0831,   1.4410, 91.1528,  -1.6435,   0.0447,  1.4441 },
+        { 90.9257,  -0.5406,  -0.9208, 88.6381,  -0.8985,  -0.7239,  1.5381 },
+        {  6.7747,  -0.2908,  -2.4247,  5.8714,  -0.0985,  -2.2286,  0.6377 },
+        {  2.0776,   0.0795,  -1.1350,  0.9033,  -0.0636,  -0.5514,  0.9082 }
+    };
+
+    private static int[] randomColors(final Random random, final int count) {
+        int[] colors = new int[count];
+        for (int i = 0 ; i < count ; i++) { colors[i] = 0xFF000000 | random.nextInt(0x1000000); }
+        return colors;
+    }
+
+
+    @Test public void ciede2000MatchesSharmaTestData() {
+        for (int i = 0 ; i < SHARMA.length ; i++) {
+            double[] p = SHARMA[i];
+            assertEquals("pair " + (i + 1), p[6], ColorDifference.ciede2000(p[0], p[1], p[2], p[3], p[4], p[5]), 5e-5);
+            // CIEDE2000 is symmetric
+            assertEquals("pair " + (i + 1), p[6], ColorDifference.ciede2000(p[3], p[4], p[5], p[0], p[1], p[2]), 5e-5);
+        }
+    }
+
+    @Test public void identicalColorsHaveNoDifference() {
+        for (DeltaE metric : DeltaE.values()) {
+            assertEquals(metric.name(), 0.0, ColorDifference.deltaE(0xFF336699, 0xFF336699, metric), EPSILON);
+            assertEquals(metric.name(), 0.0, ColorDifference.deltaE(0xFF000000, 0xFF000000, metric), EPSILON);
+        }
+        // Black and white are 100 apart in CIE76
+        assertEquals(100.0, ColorDifference.cie76(0xFF000000, 0xFFFFFFFF), 1e-3);
+    }
+
+    @Test public void closestMatchesBruteForce() {
+        Random     random  = new Random(42);
+        int[]      palette = randomColors(random, 2000);
+        LabPalette lab     = new LabPalette(palette);
+        for (DeltaE metric : DeltaE.values()) {
+            int[] argbs   = randomColors(random, 200);
+            int[] indices = new int[argbs.length];
+            lab.closest(argbs, metric, indices);
+            for (int i = 0 ; i < argbs.length ; i++) {
+                double min = Double.POSITIVE_INFINITY;
+                for (int color : palette) { min = Math.min(min, ColorDifference.deltaE(argbs[i], color, metric)); }
+                assertEquals(metric.name(), min, ColorDifference.deltaE(argbs[i], palette[indices[i]], metric), EPSILON);
+                assertEquals(indices[i], lab.closest(argbs[i], metric));
+            }
+        }
+        assertEquals(-1, new LabPalette(new int[0]).closest(0xFF123456, DeltaE.CIEDE2000));
+    }
+
+    @Test public void withinMatchesBruteForce() {
+        Random     random  = new Random(4711);
+        int[]      palette = randomColors(random, 2000);
+        LabPalette lab     = new LabPalette(palette);
+        for (DeltaE metric : DeltaE.values()) {
+            double scale = DeltaE.OKLAB == metric ? 0.01 : 1.0;
+            for (int argb : randomColors(random, 50)) {
+                double threshold = (5 + random.nextDouble() * 15) * scale;
+                int[]  expected  = new int[palette.length];
+                int    count     = 0;
+                for (int i = 0 ; i < palette.length ; i++) {
+                    if (ColorDifference.deltaE(argb, palette[i], metric) <= threshold) { expected[count++] = i; }
+                }
+                assertArrayEquals(metric.name(), Arrays.copyOf(expected, count), lab.within(argb, metric, threshold));
+            }
+        }
+    }
+
+    @Test public void batchDeltaEMatchesSingleDifferences() {
+        Random     random  = new Random(7);
+        int[]      palette = randomColors(random, 500);
+        LabPalette lab     = new LabPalette(palette);
+        for (DeltaE metric : DeltaE.values()) {
+            double[] differences = lab.deltaE(0xFF808080, metric);
+            for (int i = 0 ; i < palette.length ; i++) { assertEquals(metric.name(), ColorDifference.deltaE(0xFF808080, palette[i], metric), differences[i], EPSILON); }
+        }
+    }
+}
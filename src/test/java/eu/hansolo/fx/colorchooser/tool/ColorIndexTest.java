@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class ColorIndexTest {
+    private static final double EPSILON = 1e-12;
+
+    private static int[] randomColors(final Random random, final int count) {
+        int[] colors = new int[count];
+        for (int i = 0 ; i < count ; i++) { colors[i] = 0xFF000000 | random.nextInt(0x1000000); }
+        return colors;
+    }
+
+    // The distances of all palette colors to the given color, sorted ascending
+    private static double[] sortedDistances(final ColorIndex index, final int argb) {
+        double[] distances = new double[index.size()];
+        for (int i = 0 ; i < distances.length ; i++) { distances[i] = index.distance(argb, i); }
+        Arrays.sort(distances);
+        return distances;
+    }
+
+
+    @Test public void nearestMatchesBruteForce() {
+        Random random = new Random(42);
+        for (ColorSpace colorSpace : ColorSpace.values()) {
+            ColorIndex index = new ColorIndex(randomColors(random, 3000), colorSpace);
+            for (int argb : randomColors(random, 300)) {
+                double min = sortedDistances(index, argb)[0];
+                assertEquals(colorSpace.name(), min, index.distance(argb, index.nearest(argb)), EPSILON);
+            }
+            // Every palette color is its own nearest color
+            for (int i = 0 ; i < index.size() ; i += 97) { assertEquals(0.0, index.distance(index.getColor(i), index.nearest(index.getColor(i))), EPSILON); }
+        }
+    }
+
+    @Test public void batchNearestMatchesSingleQueries() {
+        Random     random  = new Random(7);
+        ColorIndex index   = new ColorIndex(randomColors(random, 1000));
+        int[]      argbs   = randomColors(random, ColorIndex.PARALLEL_THRESHOLD * 2 + 5);
+        int[]      indices = new int[argbs.length];
+        index.nearest(argbs, indices);
+        for (int i = 0 ; i < argbs.length ; i++) { assertEquals(index.nearest(argbs[i]), indices[i]); }
+
+        int[] snapped = argbs.clone();
+        index.snap(snapped);
+        for (int i = 0 ; i < argbs.length ; i++) { assertEquals(index.getColor(indices[i]), snapped[i]); }
+    }
+
+    @Test public void kNearestMatchesBruteForce() {
+        Random random = new Random(4711);
+        for (ColorSpace colorSpace : new ColorSpace[] { ColorSpace.LAB, ColorSpace.OKLAB }) {
+            ColorIndex index = new ColorIndex(randomColors(random, 2000), colorSpace);
+            for (int argb : randomColors(random, 100)) {
+                double[] expected = sortedDistances(index, argb);
+                for (int k : new int[] { 1, 5, 64 }) {
+                    int[] result = index.kNearest(argb, k);
+                    assertEquals(k, result.length);
+                    for (int i = 0 ; i < k ; i++) { assertEquals(colorSpace.name() + " k=" + k, expected[i], index.distance(argb, result[i]), EPSILON); }
+                }
+            }
+        }
+        // k is limited to the size of the palette
+        ColorIndex small = new ColorIndex(new int[] { 0xFFFF0000, 0xFF00FF00, 0xFF0000FF });
+        int[]      all   = small.kNearest(0xFFEE1111, 10);
+        assertEquals(3, all.length);
+        assertEquals(0, all[0]);
+        assertEquals(0, small.kNearest(0xFFEE1111, 0).length);
+    }
+
+    @Test public void withinRadiusMatchesBruteForce() {
+        Random     random = new Random(1234);
+        ColorIndex index  = new ColorIndex(randomColors(random, 3000), ColorSpace.LAB);
+        for (int argb : randomColors(random, 100)) {
+            double radius   = 5 + random.nextDouble() * 20;
+            int[]  expected = new int[index.size()];
+            int    count    = 0;
+            for (int i = 0 ; i < index.size() ; i++) {
+                if (index.distance(argb, i) <= radius) { expected[count++] = i; }
+            }
+            int[] result = index.withinRadius(argb, radius);
+            // The result is sorted by distance
+            for (int i = 1 ; i < result.length ; i++) { assertTrue(index.distance(argb, result[i - 1]) <= index.distance(argb, result[i]) + EPSILON); }
+            int[] sorted = result.clone();
+            Arrays.sort(sorted);
+            assertArrayEquals(Arrays.copyOf(expected, count), sorted);
+        }
+        assertEquals(0, index.withinRadius(0xFF000000, -1).length);
+    }
+
+    @Test public void emptyPalette() {
+        ColorIndex index = new ColorIndex(new int[0]);
+        assertEquals(-1, index.nearest(0xFF123456));
+        assertEquals(0xFF123456, index.nearestColor(0xFF123456));
+        assertEquals(0, index.kNearest(0xFF123456, 3).length);
+        assertEquals(0, index.withinRadius(0xFF123456, 1.0).length);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class ColorKernelsTest {
+    private static final int[] CORNERS = { 0xFF000000, 0xFF0000FF, 0xFF00FF00, 0xFF00FFFF, 0xFFFF0000, 0xFFFF00FF, 0xFFFFFF00, 0xFFFFFFFF };
+
+    // Repeat the corners so that the vectorized loop is used for most of them and the scalar loop for the rest
+    private static int[] colors() {
+        int[] colors = new int[CORNERS.length * 16 + 3];
+        for (int i = 0 ; i < colors.length ; i++) { colors[i] = CORNERS[i % CORNERS.length]; }
+        colors[colors.length - 1] = 0xFF336699;
+        return colors;
+    }
+
+
+    @Test public void planarYuvRoundTrip() {
+        int[]   colors = colors();
+        float[] y      = new float[colors.length];
+        float[] u      = new float[colors.length];
+        float[] v      = new float[colors.length];
+        ColorKernels.rgbToYuv(colors, y, u, v);
+
+        float[] yuv = new float[colors.length * 3];
+        for (int i = 0 ; i < colors.length ; i++) {
+            yuv[i * 3]     = y[i];
+            yuv[i * 3 + 1] = u[i];
+            yuv[i * 3 + 2] = v[i];
+        }
+        int[] result = new int[colors.length];
+        ColorKernels.yuvToRgb(yuv, result);
+        for (int i = 0 ; i < colors.length ; i++) {
+            assertEquals(String.format("#%08x (vectorized %b)", colors[i], ColorKernels.isVectorized()), colors[i], result[i]);
+        }
+    }
+
+    @Test public void interleavedYuvRoundTrip() {
+        int[]   colors = colors();
+        float[] yuv    = new float[colors.length * 3];
+        int[]   result = new int[colors.length];
+        ColorKernels.rgbToYuv(colors, yuv);
+        ColorKernels.yuvToRgb(yuv, result);
+        for (int i = 0 ; i < colors.length ; i++) { assertEquals(String.format("#%08x", colors[i]), colors[i], result[i]); }
+    }
+
+    @Test public void lumaMatchesPackedColor() {
+        int[]   colors = colors();
+        float[] y      = new float[colors.length];
+        ColorKernels.luma(colors, y);
+        for (int i = 0 ; i < colors.length ; i++) { assertEquals(PackedColor.luma(colors[i]), y[i], 1e-5); }
+        assertEquals(1.0, PackedColor.luma(PackedColor.WHITE), 1e-6);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class ColorParserTest {
+    @Test public void namedColors() {
+        long red = ColorParser.tryParse("Red");
+        assertEquals(0xFFFF0000, ColorParser.toArgb(red));
+        assertFalse(ColorParser.hasAlpha(red));
+
+        long transparent = ColorParser.tryParse("transparent");
+        assertEquals(0x00000000, ColorParser.toArgb(transparent));
+        assertTrue(ColorParser.hasAlpha(transparent));
+    }
+
+    @Test public void alphaOnlyWhenGiven() {
+        assertFalse(ColorParser.hasAlpha(ColorParser.tryParse("#336699")));
+        assertTrue(ColorParser.hasAlpha(ColorParser.tryParse("#33669980")));
+        assertFalse(ColorParser.hasAlpha(ColorParser.tryParse("rgb(1, 2, 3)")));
+        assertTrue(ColorParser.hasAlpha(ColorParser.tryParse("rgba(1, 2, 3, 0.5)")));
+        assertEquals(ColorParser.INVALID, ColorParser.tryParse("nonsense"));
+    }
+}
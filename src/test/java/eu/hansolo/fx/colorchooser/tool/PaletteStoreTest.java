@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.colorchooser.tool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class PaletteStoreTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test public void roundTrip() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("palette.cpal");
+        try (PaletteStore store = PaletteStore.create(file, 16)) {
+            assertEquals(0, store.append(0xFFFF0000, "Red"));
+            assertEquals(1, store.append(0x8000FF00, null));
+            assertEquals(2, store.append(new int[] { 0xFF0000FF, 0xFF123456 }));
+            assertEquals(4, store.append(0xFFFFFFFF, "Wei\u00DF und noch viel l\u00E4nger"));
+        }
+        // The file is truncated to the records on close
+        assertEquals(PaletteStore.HEADER_SIZE + 5 * (6 + 16), Files.size(file));
+
+        try (PaletteStore store = PaletteStore.open(file, false)) {
+            assertEquals(5, store.size());
+            assertEquals(0xFFFF0000, store.getArgb(0));
+            assertEquals(0x8000FF00, store.getArgb(1));
+            assertEquals("Red", store.getName(0));
+            assertNull(store.getName(1));
+            assertNull(store.getName(2));
+            // Names are truncated to max name bytes without splitting a character
+            assertEquals("Wei\u00DF und noch v", store.getName(4));
+
+            int[] argbs = new int[5];
+            store.getArgbs(0, argbs, 0, 5);
+            assertArrayEquals(new int[] { 0xFFFF0000, 0x8000FF00, 0xFF0000FF, 0xFF123456, 0xFFFFFFFF }, argbs);
+        }
+
+        try (PaletteStore store = PaletteStore.open(file, true)) {
+            assertEquals(5, store.append(0xFF000000, "Black"));
+        }
+        try (PaletteStore store = PaletteStore.open(file, false)) {
+            assertEquals(6, store.size());
+            assertEquals("Black", store.getName(5));
+        }
+    }
+
+    @Test public void interleavedAppendAndRead() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("interleaved.cpal");
+        int  count = 200_000;
+        try (PaletteStore store = PaletteStore.create(file, 8)) {
+            for (int i = 0 ; i < count ; i++) {
+                store.append(0xFF000000 | i, Integer.toString(i));
+                assertEquals(0xFF000000 | i, store.getArgb(i));
+                assertEquals(0xFF000000, store.getArgb(0));
+            }
+            assertEquals(Integer.toString(count - 1), store.getName(count - 1));
+
+            int[] argbs = new int[count];
+            store.getArgbs(0, argbs, 0, count);
+            for (int i = 0 ; i < count ; i++) { assertEquals(0xFF000000 | i, argbs[i]); }
+        }
+        // Segments were mapped, so at most the slack of one segment may be left
+        long records = PaletteStore.HEADER_SIZE + (long) count * (6 + 8);
+        assertTrue(Files.size(file) >= records);
+        assertTrue(Files.size(file) - records <= PaletteStore.SEGMENT_SIZE);
+        try (PaletteStore store = PaletteStore.open(file, false)) {
+            assertEquals(count, store.size());
+            assertEquals(0xFF000000 | (count / 2), store.getArgb(count / 2));
+        }
+        // The slack is removed when the file is opened writable again
+        try (PaletteStore store = PaletteStore.open(file, true)) {
+            assertEquals(records, Files.size(file));
+            assertEquals(count, store.append(0xFF123456, "Last"));
+            assertEquals(0xFF123456, store.getArgb(count));
+        }
+        try (PaletteStore store = PaletteStore.open(file, true)) {
+            assertEquals(records + 6 + 8, Files.size(file));
+            assertEquals("Last", store.getName(count));
+        }
+        assertEquals(records + 6 + 8, Files.size(file));
+    }
+
+    @Test public void readerSeesAppendsAfterRefresh() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("shared.cpal");
+        try (PaletteStore writer = PaletteStore.create(file, 0);
+             PaletteStore reader = PaletteStore.open(file, false)) {
+            for (int i = 0 ; i < 10_000 ; i++) {
+                writer.append(i);
+                assertEquals(i + 1, reader.refresh());
+                assertEquals(i, reader.getArgb(i));
+            }
+        }
+    }
+}